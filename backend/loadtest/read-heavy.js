@@ -0,0 +1,34 @@
+// k6 load test for comparing platform-thread and virtual-thread runs.
+// Usage: k6 run -e BASE_URL=http://localhost:8080 -e VUS=800 loadtest/read-heavy.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+
+export const options = {
+  vus: Number(__ENV.VUS || 800),
+  duration: __ENV.DURATION || '2m',
+};
+
+export function setup() {
+  const tokens = {};
+  for (const [username, password] of [['doctor1', 'doctor123'], ['patient1', 'patient123']]) {
+    const res = http.post(`${BASE_URL}/api/auth/signin`, JSON.stringify({ username, password }),
+      { headers: { 'Content-Type': 'application/json' } });
+    tokens[username] = res.json('accessToken');
+  }
+  return tokens;
+}
+
+export default function (tokens) {
+  const doctor = { headers: { Authorization: `Bearer ${tokens.doctor1}` } };
+  const patient = { headers: { Authorization: `Bearer ${tokens.patient1}` } };
+
+  const responses = http.batch([
+    ['GET', `${BASE_URL}/api/doctor/appointments/page?size=20`, null, doctor],
+    ['GET', `${BASE_URL}/api/doctor/dashboard`, null, doctor],
+    ['GET', `${BASE_URL}/api/patient/appointments/page?size=20`, null, patient],
+    ['GET', `${BASE_URL}/api/patient/doctors`, null, patient],
+  ]);
+  responses.forEach((res) => check(res, { 'status is 200': (r) => r.status === 200 }));
+}
@@ -0,0 +1,56 @@
+package com.hospital.hms.config;
+
+import com.hospital.hms.entity.IdSequences;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves each id block counter past the largest id already in its table. Rows written while the
+ * tables used IDENTITY columns (or inserted by hand) would otherwise collide with new blocks.
+ * Runs during context startup, after the schema exists and before the server accepts requests.
+ */
+@Component
+public class IdSequenceAligner {
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceAligner.class);
+
+    // Sequence name (pkColumnValue of the entity's @TableGenerator) to table
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "users", "users",
+            "appointments", "appointments",
+            "prescriptions", "prescriptions");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Only injected so the schema is created before the alignment runs
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void align() {
+        SEQUENCES.forEach(this::align);
+    }
+
+    private void align(String sequence, String table) {
+        Long next = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table, Long.class);
+
+        int updated = jdbcTemplate.update("UPDATE " + IdSequences.TABLE + " SET next_val = ? WHERE sequence_name = ? AND next_val < ?",
+                next, sequence, next);
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + IdSequences.TABLE + " WHERE sequence_name = ?",
+                Integer.class, sequence);
+        if (rows == 0) {
+            jdbcTemplate.update("INSERT INTO " + IdSequences.TABLE + " (sequence_name, next_val) VALUES (?, ?)", sequence, next);
+            updated = 1;
+        }
+        if (updated > 0) {
+            logger.info("Id sequence '{}' moved to {}", sequence, next);
+        }
+    }
+}
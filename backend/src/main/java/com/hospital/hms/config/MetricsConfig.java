@@ -0,0 +1,61 @@
+package com.hospital.hms.config;
+
+import com.hospital.hms.entity.User;
+import com.hospital.hms.repository.UserRepository;
+import com.hospital.hms.service.ChangeNotifier;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.BiFunction;
+
+@Configuration
+public class MetricsConfig {
+
+    // Records @Timed service classes as the hms.service timer, tagged by class and method
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    // Hit ratio of the second-level cache regions that back user lookups and the role directories
+    @Bean
+    public MeterBinder secondLevelCacheHitRatio(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            registerHitRatio(registry, User.CACHE_REGION, statistics, Statistics::getDomainDataRegionStatistics);
+            registerHitRatio(registry, UserRepository.DIRECTORY_CACHE_REGION, statistics, Statistics::getQueryRegionStatistics);
+        };
+    }
+
+    // Server-Sent Event streams currently open across all users
+    @Bean
+    public MeterBinder openEventStreams(ChangeNotifier changeNotifier) {
+        return registry -> Gauge.builder("hms.events.streams", changeNotifier, ChangeNotifier::getOpenStreams)
+                .description("Open change notification streams")
+                .register(registry);
+    }
+
+    private static void registerHitRatio(MeterRegistry registry, String region, Statistics statistics,
+                                         BiFunction<Statistics, String, CacheRegionStatistics> regionStatistics) {
+        Gauge.builder("hms.cache.hit.ratio", statistics, stats -> {
+                    CacheRegionStatistics regionStats = regionStatistics.apply(stats, region);
+                    if (regionStats == null) {
+                        // Query regions only exist once the first cacheable query has run
+                        return 0.0;
+                    }
+                    long lookups = regionStats.getHitCount() + regionStats.getMissCount();
+                    return lookups == 0 ? 0.0 : (double) regionStats.getHitCount() / lookups;
+                })
+                .tag("region", region)
+                .description("Second-level cache hits over lookups since startup")
+                .register(registry);
+    }
+}
@@ -0,0 +1,86 @@
+package com.hospital.hms.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps a client's reads on the primary for app.datasource.replicas.stickyMillis after it sent a
+ * request that changes data, so replication lag never hides its own writes from it. Requests that
+ * write are pinned for their whole duration. The time of the last write travels in a cookie rather
+ * than being remembered here, so the next read is pinned whichever instance serves it.
+ */
+@Component
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+    private static final String LAST_WRITE_COOKIE = "hms_last_write";
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    @Value("${app.datasource.replicas.stickyMillis:5000}")
+    private long stickyMillis;
+
+    @Value("${app.datasource.replicas.urls:}")
+    private List<String> replicaUrls;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (replicaUrls.stream().allMatch(String::isBlank)) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (!READ_METHODS.contains(request.getMethod())) {
+            ReplicaRoutingDataSource.pinToPrimary();
+            // Set before the handler runs: the response is committed by the time it returns
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(LAST_WRITE_COOKIE, Long.toString(now))
+                    .path("/api")
+                    .httpOnly(true)
+                    .sameSite("Lax")
+                    .maxAge(Duration.ofMillis(stickyMillis).plusSeconds(1))
+                    .build()
+                    .toString());
+        } else {
+            Long wroteAt = lastWriteMillis(request);
+            if (wroteAt != null && now - wroteAt < stickyMillis) {
+                ReplicaRoutingDataSource.pinToPrimary();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReplicaRoutingDataSource.unpin();
+    }
+
+    // Streamed responses carry on without the request thread, which goes back to the pool
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReplicaRoutingDataSource.unpin();
+    }
+
+    private static Long lastWriteMillis(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (LAST_WRITE_COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
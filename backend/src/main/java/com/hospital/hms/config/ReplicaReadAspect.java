@@ -0,0 +1,27 @@
+package com.hospital.hms.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lets the router send the current thread's read-only transactions to a replica while a
+ * {@link ReplicaRead} method runs.
+ */
+@Aspect
+@Component
+public class ReplicaReadAspect {
+
+    @Around("@annotation(com.hospital.hms.config.ReplicaRead)")
+    public Object allowReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean outermost = ReplicaRoutingDataSource.allowReplica();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            if (outermost) {
+                ReplicaRoutingDataSource.disallowReplica();
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.hospital.hms.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections for read-only transactions inside a {@link ReplicaRead} method to the replicas
+ * in turn and everything else to the primary; Spring Data's repository methods are read-only
+ * transactions too, and most of their callers need current data. Must sit behind a
+ * LazyConnectionDataSourceProxy: the transaction manager only marks the transaction read-only
+ * after it has asked for a connection, so the choice is deferred to the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> replicaAllowed = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> pinnedToPrimary = new ThreadLocal<>();
+
+    private final List<String> replicaKeys;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Map<String, Counter> routed = new HashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.replicaKeys = List.copyOf(replicas.keySet());
+
+        for (Object key : targets.keySet()) {
+            routed.put((String) key, Counter.builder("hms.datasource.routed")
+                    .tag("pool", (String) key)
+                    .description("Connections handed out per pool by the read/write router")
+                    .register(meterRegistry));
+        }
+    }
+
+    // Returns false when already allowed by an enclosing call, which then also ends it
+    static boolean allowReplica() {
+        if (replicaAllowed.get() != null) {
+            return false;
+        }
+        replicaAllowed.set(Boolean.TRUE);
+        return true;
+    }
+
+    static void disallowReplica() {
+        replicaAllowed.remove();
+    }
+
+    /**
+     * Sends the current thread's read-only transactions to the primary until {@link #unpin()},
+     * so a user reads their own writes before they reach the replicas.
+     */
+    public static void pinToPrimary() {
+        pinnedToPrimary.set(Boolean.TRUE);
+    }
+
+    public static void unpin() {
+        pinnedToPrimary.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String key = PRIMARY;
+        if (replicaAllowed.get() != null && pinnedToPrimary.get() == null
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            key = replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size()));
+        }
+        routed.get(key).increment();
+        return key;
+    }
+}
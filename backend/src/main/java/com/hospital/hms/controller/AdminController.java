@@ -1,20 +1,39 @@
 package com.hospital.hms.controller;
 
-import com.hospital.hms.entity.Role;
-import com.hospital.hms.entity.User;
+import com.hospital.hms.dto.AppointmentTransitionRequest;
+import com.hospital.hms.dto.AppointmentView;
+import com.hospital.hms.dto.BulkAppointmentRequest;
+import com.hospital.hms.dto.BulkPrescriptionRequest;
+import com.hospital.hms.dto.PrescriptionView;
 import com.hospital.hms.entity.Appointment;
 import com.hospital.hms.entity.Prescription;
+import com.hospital.hms.entity.Role;
+import com.hospital.hms.entity.User;
+import com.hospital.hms.service.DashboardStatistics;
+import com.hospital.hms.service.ExportService;
+import com.hospital.hms.service.ImportJob;
+import com.hospital.hms.service.ImportService;
+import com.hospital.hms.service.ResourceVersions;
 import com.hospital.hms.service.UserService;
 import com.hospital.hms.service.AppointmentService;
 import com.hospital.hms.service.PrescriptionService;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -31,29 +50,53 @@ public class AdminController {
     @Autowired
     private PrescriptionService prescriptionService;
 
+    @Autowired
+    private DashboardStatistics dashboardStatistics;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    @Autowired
+    private ConditionalGet conditionalGet;
+
+    @Value("${app.export.timeoutMillis:1800000}")
+    private long exportTimeoutMillis;
+
     @GetMapping("/dashboard")
-    public ResponseEntity<?> getDashboard() {
-        Map<String, Object> dashboard = new HashMap<>();
-        
-        List<User> patients = userService.getPatients();
-        List<User> doctors = userService.getDoctors();
-        List<Appointment> appointments = appointmentService.getAllAppointments();
-        List<Prescription> prescriptions = prescriptionService.getAllPrescriptions();
-        
-        dashboard.put("totalPatients", patients.size());
-        dashboard.put("totalDoctors", doctors.size());
-        dashboard.put("totalAppointments", appointments.size());
-        dashboard.put("totalPrescriptions", prescriptions.size());
-        
-        dashboard.put("recentAppointments", appointments.stream().limit(5).toList());
-        dashboard.put("recentPrescriptions", prescriptions.stream().limit(5).toList());
-        
-        return ResponseEntity.ok(dashboard);
+    public ResponseEntity<?> getDashboard(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet.respond(ifNoneMatch, () -> resourceVersions.etag(ResourceVersions.ALL_USERS,
+                ResourceVersions.ALL_APPOINTMENTS, ResourceVersions.ALL_PRESCRIPTIONS), () -> {
+            Map<String, Object> dashboard = new HashMap<>();
+            DashboardStatistics.Counts counts = dashboardStatistics.getCounts();
+
+            dashboard.put("totalPatients", counts.getUserCount(Role.PATIENT));
+            dashboard.put("totalDoctors", counts.getUserCount(Role.DOCTOR));
+            dashboard.put("totalAppointments", counts.getAppointmentCount());
+            dashboard.put("totalPrescriptions", counts.prescriptions());
+            dashboard.put("appointmentsByStatus", counts.appointmentsByStatus());
+
+            dashboard.put("recentAppointments", appointmentService.getRecentAppointments(5));
+            dashboard.put("recentPrescriptions", prescriptionService.getRecentPrescriptions(5));
+            return dashboard;
+        });
     }
 
     @GetMapping("/users")
-    public ResponseEntity<List<User>> getAllUsers() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public ResponseEntity<List<User>> getAllUsers(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet.respond(ifNoneMatch, () -> resourceVersions.etag(ResourceVersions.ALL_USERS), userService::getAllUsers);
+    }
+
+    @GetMapping("/users/page")
+    public ResponseEntity<?> getUsersPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(userService.getUsersPage(cursor, size));
     }
 
     @GetMapping("/users/{id}")
@@ -64,13 +107,27 @@ public class AdminController {
     }
 
     @GetMapping("/doctors")
-    public ResponseEntity<List<User>> getAllDoctors() {
-        return ResponseEntity.ok(userService.getDoctors());
+    public ResponseEntity<List<User>> getAllDoctors(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet.respond(ifNoneMatch, () -> resourceVersions.etag(ResourceVersions.role(Role.DOCTOR)), userService::getDoctors);
+    }
+
+    @GetMapping("/doctors/page")
+    public ResponseEntity<?> getDoctorsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(userService.getUsersPageByRole(Role.DOCTOR, cursor, size));
     }
 
     @GetMapping("/patients")
-    public ResponseEntity<List<User>> getAllPatients() {
-        return ResponseEntity.ok(userService.getPatients());
+    public ResponseEntity<List<User>> getAllPatients(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet.respond(ifNoneMatch, () -> resourceVersions.etag(ResourceVersions.role(Role.PATIENT)), userService::getPatients);
+    }
+
+    @GetMapping("/patients/page")
+    public ResponseEntity<?> getPatientsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(userService.getUsersPageByRole(Role.PATIENT, cursor, size));
     }
 
     @PutMapping("/users/{id}")
@@ -100,12 +157,115 @@ public class AdminController {
     }
 
     @GetMapping("/appointments")
-    public ResponseEntity<List<Appointment>> getAllAppointments() {
-        return ResponseEntity.ok(appointmentService.getAllAppointments());
+    public ResponseEntity<List<AppointmentView>> getAllAppointments(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet.respond(ifNoneMatch, () -> resourceVersions.etag(ResourceVersions.ALL_APPOINTMENTS), appointmentService::getAllAppointments);
+    }
+
+    @GetMapping("/appointments/page")
+    public ResponseEntity<?> getAppointmentsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(appointmentService.getAppointmentsPage(cursor, size));
+    }
+
+    @PostMapping("/appointments/bulk")
+    public ResponseEntity<?> createAppointments(@Valid @RequestBody BulkAppointmentRequest request) {
+        List<Appointment> created = appointmentService.createAppointments(request.getAppointments());
+        return ResponseEntity.ok(bulkResult(created.stream().map(Appointment::getId).toList()));
+    }
+
+    @PostMapping("/appointments/transitions")
+    public ResponseEntity<?> transitionAppointments(@Valid @RequestBody AppointmentTransitionRequest request) {
+        List<Long> updated = appointmentService.transitionAppointments(request.getStatus(), request.getIds(),
+                request.getDoctorId(), request.getDate());
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", request.getStatus());
+        response.put("updated", updated.size());
+        response.put("ids", updated);
+        return ResponseEntity.ok(response);
     }
 
     @GetMapping("/prescriptions")
-    public ResponseEntity<List<Prescription>> getAllPrescriptions() {
-        return ResponseEntity.ok(prescriptionService.getAllPrescriptions());
+    public ResponseEntity<List<PrescriptionView>> getAllPrescriptions(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet.respond(ifNoneMatch, () -> resourceVersions.etag(ResourceVersions.ALL_PRESCRIPTIONS), prescriptionService::getAllPrescriptions);
+    }
+
+    @GetMapping("/prescriptions/page")
+    public ResponseEntity<?> getPrescriptionsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(prescriptionService.getPrescriptionsPage(cursor, size));
+    }
+
+    @PostMapping("/prescriptions/bulk")
+    public ResponseEntity<?> createPrescriptions(@Valid @RequestBody BulkPrescriptionRequest request) {
+        List<Prescription> created = prescriptionService.createPrescriptions(request.getPrescriptions());
+        return ResponseEntity.ok(bulkResult(created.stream().map(Prescription::getId).toList()));
+    }
+
+    private static Map<String, Object> bulkResult(List<Long> ids) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("created", ids.size());
+        response.put("ids", ids);
+        return response;
+    }
+
+    @PostMapping("/imports/patients")
+    public ResponseEntity<?> importPatients(@RequestParam("file") MultipartFile file) {
+        return startImport(ImportJob.Type.PATIENTS, file);
+    }
+
+    @PostMapping("/imports/appointments")
+    public ResponseEntity<?> importAppointments(@RequestParam("file") MultipartFile file) {
+        return startImport(ImportJob.Type.APPOINTMENTS, file);
+    }
+
+    @GetMapping("/imports/{id}")
+    public ResponseEntity<?> getImport(@PathVariable String id) {
+        return importService.getJob(id)
+                .map(job -> ResponseEntity.ok().body(job))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/imports/{id}/errors")
+    public ResponseEntity<?> getImportErrors(@PathVariable String id) {
+        return importService.getJob(id)
+                .map(job -> ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"import-" + id + "-errors.csv\"")
+                        .contentType(MediaType.parseMediaType("text/csv"))
+                        .body(importService.errorReport(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<?> startImport(ImportJob.Type type, MultipartFile file) {
+        return ResponseEntity.accepted().body(importService.startImport(type, file));
+    }
+
+    @GetMapping("/export/appointments")
+    public WebAsyncTask<Void> exportAppointments(@RequestParam(defaultValue = "ndjson") String format,
+                                                 @RequestParam(defaultValue = "true") boolean includeArchived,
+                                                 HttpServletResponse response) {
+        return exportTask("appointments", format, response,
+                (exportFormat, out) -> exportService.exportAppointments(exportFormat, includeArchived, out));
+    }
+
+    @GetMapping("/export/prescriptions")
+    public WebAsyncTask<Void> exportPrescriptions(@RequestParam(defaultValue = "ndjson") String format,
+                                                  @RequestParam(defaultValue = "true") boolean includeArchived,
+                                                  HttpServletResponse response) {
+        return exportTask("prescriptions", format, response,
+                (exportFormat, out) -> exportService.exportPrescriptions(exportFormat, includeArchived, out));
+    }
+
+    // Streams on an MVC async thread with the export's own timeout; the response is written directly
+    private WebAsyncTask<Void> exportTask(String name, String formatName, HttpServletResponse response,
+                                          BiConsumer<ExportService.Format, OutputStream> export) {
+        ExportService.Format format = ExportService.Format.parse(formatName);
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "." + format.getExtension() + "\"");
+        return new WebAsyncTask<>(exportTimeoutMillis, () -> {
+            export.accept(format, response.getOutputStream());
+            return null;
+        });
     }
-}
\ No newline at end of file
+}
@@ -6,12 +6,14 @@ import com.hospital.hms.dto.SignupRequest;
 import com.hospital.hms.entity.Role;
 import com.hospital.hms.entity.User;
 import com.hospital.hms.security.JwtUtils;
+import com.hospital.hms.security.PasswordHashingRejectedException;
 import com.hospital.hms.security.UserPrincipal;
 import com.hospital.hms.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -61,15 +63,27 @@ public class AuthController {
                     userDetails.getLastName(),
                     userDetails.getAuthorities().iterator().next().getAuthority().equals("ROLE_ADMIN") ? Role.ADMIN :
                     userDetails.getAuthorities().iterator().next().getAuthority().equals("ROLE_DOCTOR") ? Role.DOCTOR : Role.PATIENT));
+        } catch (PasswordHashingRejectedException e) {
+            throw e;
+        } catch (InternalAuthenticationServiceException e) {
+            // The provider wraps what its user lookup throws, including the dummy hash for unknown users
+            if (e.getCause() instanceof PasswordHashingRejectedException rejected) {
+                throw rejected;
+            }
+            return invalidCredentials(loginRequest, e);
         } catch (Exception e) {
-            System.out.println("Login failed for username: " + loginRequest.getUsername() + ", Error: " + e.getMessage());
-            e.printStackTrace();
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "Invalid username or password");
-            return ResponseEntity.badRequest().body(error);
+            return invalidCredentials(loginRequest, e);
         }
     }
 
+    private static ResponseEntity<?> invalidCredentials(LoginRequest loginRequest, Exception e) {
+        System.out.println("Login failed for username: " + loginRequest.getUsername() + ", Error: " + e.getMessage());
+        e.printStackTrace();
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Invalid username or password");
+        return ResponseEntity.badRequest().body(error);
+    }
+
     @PostMapping("/signup")
     public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
         Map<String, String> response = new HashMap<>();
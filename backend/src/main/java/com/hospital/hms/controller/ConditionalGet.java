@@ -0,0 +1,49 @@
+package com.hospital.hms.controller;
+
+import com.hospital.hms.config.ReplicaRead;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Supplier;
+
+/**
+ * Answers conditional GETs: when the client already holds the current ETag the body is never built.
+ * The tag and the body are read in one read-only transaction, so both come from the same database
+ * (a replica or the primary) and a lagging replica cannot pair a new tag with old data.
+ */
+@Component
+class ConditionalGet {
+
+    // Lets browsers keep the response but forces them to revalidate it with If-None-Match every time
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public <T> ResponseEntity<T> respond(String ifNoneMatch, Supplier<String> etag, Supplier<T> body) {
+        String tag = etag.get();
+        if (matches(ifNoneMatch, tag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).cacheControl(REVALIDATE).build();
+        }
+        return ResponseEntity.ok().eTag(tag).cacheControl(REVALIDATE).body(body.get());
+    }
+
+    // If-None-Match uses weak comparison, so W/ prefixed copies of the tag also match
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
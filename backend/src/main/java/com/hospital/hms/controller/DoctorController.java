@@ -1,17 +1,21 @@
 package com.hospital.hms.controller;
 
 import com.hospital.hms.dto.AppointmentRequest;
+import com.hospital.hms.dto.AppointmentView;
 import com.hospital.hms.dto.PrescriptionRequest;
-import com.hospital.hms.entity.Appointment;
+import com.hospital.hms.dto.PrescriptionView;
 import com.hospital.hms.entity.AppointmentStatus;
 import com.hospital.hms.entity.Prescription;
+import com.hospital.hms.entity.Role;
 import com.hospital.hms.entity.User;
 import com.hospital.hms.security.UserPrincipal;
 import com.hospital.hms.service.AppointmentService;
 import com.hospital.hms.service.PrescriptionService;
+import com.hospital.hms.service.ResourceVersions;
 import com.hospital.hms.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -36,6 +40,12 @@ public class DoctorController {
     @Autowired
     private PrescriptionService prescriptionService;
 
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    @Autowired
+    private ConditionalGet conditionalGet;
+
     @GetMapping("/profile")
     public ResponseEntity<?> getDoctorProfile(Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
@@ -45,30 +55,49 @@ public class DoctorController {
     }
 
     @GetMapping("/dashboard")
-    public ResponseEntity<?> getDashboard(Authentication authentication) {
+    public ResponseEntity<?> getDashboard(Authentication authentication, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
         Long doctorId = userPrincipal.getId();
-        
-        Map<String, Object> dashboard = new HashMap<>();
-        
-        List<Appointment> appointments = appointmentService.getAppointmentsByDoctorId(doctorId);
-        List<Prescription> prescriptions = prescriptionService.getPrescriptionsByDoctorId(doctorId);
-        
-        dashboard.put("totalAppointments", appointments.size());
-        dashboard.put("totalPrescriptions", prescriptions.size());
-        dashboard.put("recentAppointments", appointments.stream().limit(5).toList());
-        dashboard.put("upcomingAppointments", appointments.stream()
-                .filter(apt -> apt.getStatus() == AppointmentStatus.SCHEDULED || apt.getStatus() == AppointmentStatus.CONFIRMED)
-                .limit(5).toList());
-        
-        return ResponseEntity.ok(dashboard);
+
+        return conditionalGet.respond(ifNoneMatch, () -> resourceVersions.etag(ResourceVersions.user(doctorId)), () -> {
+            Map<String, Object> dashboard = new HashMap<>();
+
+            List<AppointmentView> appointments = appointmentService.getAppointmentsByDoctorId(doctorId);
+            List<PrescriptionView> prescriptions = prescriptionService.getPrescriptionsByDoctorId(doctorId);
+
+            dashboard.put("totalAppointments", appointments.size());
+            dashboard.put("totalPrescriptions", prescriptions.size());
+            dashboard.put("recentAppointments", appointments.stream().limit(5).toList());
+            dashboard.put("upcomingAppointments", appointments.stream()
+                    .filter(apt -> apt.status() == AppointmentStatus.SCHEDULED || apt.status() == AppointmentStatus.CONFIRMED)
+                    .limit(5).toList());
+            return dashboard;
+        });
     }
 
     @GetMapping("/appointments")
-    public ResponseEntity<List<Appointment>> getMyAppointments(Authentication authentication) {
+    public ResponseEntity<List<AppointmentView>> getMyAppointments(Authentication authentication, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        return conditionalGet.respond(ifNoneMatch, () -> resourceVersions.etag(ResourceVersions.user(userPrincipal.getId())),
+                () -> appointmentService.getAppointmentsByDoctorId(userPrincipal.getId()));
+    }
+
+    @GetMapping("/appointments/page")
+    public ResponseEntity<?> getMyAppointmentsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        return ResponseEntity.ok(appointmentService.getAppointmentsPageByDoctorId(userPrincipal.getId(), cursor, size));
+    }
+
+    @GetMapping("/appointments/history")
+    public ResponseEntity<?> getMyArchivedAppointmentsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-        List<Appointment> appointments = appointmentService.getAppointmentsByDoctorId(userPrincipal.getId());
-        return ResponseEntity.ok(appointments);
+        return ResponseEntity.ok(appointmentService.getArchivedAppointmentsPageByDoctorId(userPrincipal.getId(), cursor, size));
     }
 
     @PutMapping("/appointments/{id}/status")
@@ -76,7 +105,7 @@ public class DoctorController {
         try {
             String status = request.get("status");
             AppointmentStatus appointmentStatus = AppointmentStatus.valueOf(status);
-            Appointment updatedAppointment = appointmentService.updateAppointmentStatus(id, appointmentStatus);
+            AppointmentView updatedAppointment = appointmentService.updateAppointmentStatus(id, appointmentStatus);
             return ResponseEntity.ok(updatedAppointment);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
@@ -89,7 +118,7 @@ public class DoctorController {
     public ResponseEntity<?> updateAppointmentNotes(@PathVariable Long id, @RequestBody Map<String, String> request) {
         try {
             String notes = request.get("notes");
-            Appointment updatedAppointment = appointmentService.updateAppointmentNotes(id, notes);
+            AppointmentView updatedAppointment = appointmentService.updateAppointmentNotes(id, notes);
             return ResponseEntity.ok(updatedAppointment);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
@@ -99,10 +128,28 @@ public class DoctorController {
     }
 
     @GetMapping("/prescriptions")
-    public ResponseEntity<List<Prescription>> getMyPrescriptions(Authentication authentication) {
+    public ResponseEntity<List<PrescriptionView>> getMyPrescriptions(Authentication authentication, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-        List<Prescription> prescriptions = prescriptionService.getPrescriptionsByDoctorId(userPrincipal.getId());
-        return ResponseEntity.ok(prescriptions);
+        return conditionalGet.respond(ifNoneMatch, () -> resourceVersions.etag(ResourceVersions.user(userPrincipal.getId())),
+                () -> prescriptionService.getPrescriptionsByDoctorId(userPrincipal.getId()));
+    }
+
+    @GetMapping("/prescriptions/page")
+    public ResponseEntity<?> getMyPrescriptionsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        return ResponseEntity.ok(prescriptionService.getPrescriptionsPageByDoctorId(userPrincipal.getId(), cursor, size));
+    }
+
+    @GetMapping("/prescriptions/history")
+    public ResponseEntity<?> getMyArchivedPrescriptionsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        return ResponseEntity.ok(prescriptionService.getArchivedPrescriptionsPageByDoctorId(userPrincipal.getId(), cursor, size));
     }
 
     @PostMapping("/prescriptions")
@@ -146,7 +193,30 @@ public class DoctorController {
     }
 
     @GetMapping("/patients")
-    public ResponseEntity<List<User>> getPatients() {
-        return ResponseEntity.ok(userService.getPatients());
+    public ResponseEntity<List<User>> getPatients(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet.respond(ifNoneMatch, () -> resourceVersions.etag(ResourceVersions.role(Role.PATIENT)), userService::getPatients);
+    }
+
+    @GetMapping("/medicines/suggestions")
+    public ResponseEntity<?> suggestMedicines(
+            Authentication authentication,
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        return ResponseEntity.ok(prescriptionService.suggestMedicines(userPrincipal.getId(), prefix, limit));
+    }
+
+    @GetMapping("/patients/search")
+    public ResponseEntity<?> searchPatients(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(userService.searchPatients(q, limit));
+    }
+
+    @GetMapping("/patients/page")
+    public ResponseEntity<?> getPatientsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(userService.getUsersPageByRole(Role.PATIENT, cursor, size));
     }
 }
\ No newline at end of file
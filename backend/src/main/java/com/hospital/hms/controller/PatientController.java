@@ -1,21 +1,28 @@
 package com.hospital.hms.controller;
 
 import com.hospital.hms.dto.AppointmentRequest;
+import com.hospital.hms.dto.AppointmentView;
+import com.hospital.hms.dto.PrescriptionView;
 import com.hospital.hms.entity.Appointment;
 import com.hospital.hms.entity.AppointmentStatus;
-import com.hospital.hms.entity.Prescription;
+import com.hospital.hms.entity.Role;
 import com.hospital.hms.entity.User;
 import com.hospital.hms.security.UserPrincipal;
 import com.hospital.hms.service.AppointmentService;
+import com.hospital.hms.service.AvailabilityService;
 import com.hospital.hms.service.PrescriptionService;
+import com.hospital.hms.service.ResourceVersions;
 import com.hospital.hms.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -36,6 +43,15 @@ public class PatientController {
     @Autowired
     private PrescriptionService prescriptionService;
 
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    @Autowired
+    private ConditionalGet conditionalGet;
+
     @GetMapping("/profile")
     public ResponseEntity<?> getPatientProfile(Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
@@ -58,31 +74,51 @@ public class PatientController {
     }
 
     @GetMapping("/dashboard")
-    public ResponseEntity<?> getDashboard(Authentication authentication) {
+    public ResponseEntity<?> getDashboard(Authentication authentication, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
         Long patientId = userPrincipal.getId();
-        
-        Map<String, Object> dashboard = new HashMap<>();
-        
-        List<Appointment> appointments = appointmentService.getAppointmentsByPatientId(patientId);
-        List<Prescription> prescriptions = prescriptionService.getPrescriptionsByPatientId(patientId);
-        
-        dashboard.put("totalAppointments", appointments.size());
-        dashboard.put("totalPrescriptions", prescriptions.size());
-        dashboard.put("recentAppointments", appointments.stream().limit(5).toList());
-        dashboard.put("upcomingAppointments", appointments.stream()
-                .filter(apt -> apt.getAppointmentDateTime().isAfter(LocalDateTime.now()) && 
-                              (apt.getStatus() == AppointmentStatus.SCHEDULED || apt.getStatus() == AppointmentStatus.CONFIRMED))
-                .limit(5).toList());
-        
-        return ResponseEntity.ok(dashboard);
+
+        // Upcoming appointments depend on the current time as well as on the data
+        return conditionalGet.respond(ifNoneMatch, () -> resourceVersions.etagPerMinute(ResourceVersions.user(patientId)), () -> {
+            Map<String, Object> dashboard = new HashMap<>();
+
+            List<AppointmentView> appointments = appointmentService.getAppointmentsByPatientId(patientId);
+            List<PrescriptionView> prescriptions = prescriptionService.getPrescriptionsByPatientId(patientId);
+
+            dashboard.put("totalAppointments", appointments.size());
+            dashboard.put("totalPrescriptions", prescriptions.size());
+            dashboard.put("recentAppointments", appointments.stream().limit(5).toList());
+            dashboard.put("upcomingAppointments", appointments.stream()
+                    .filter(apt -> apt.appointmentDateTime().isAfter(LocalDateTime.now()) &&
+                                  (apt.status() == AppointmentStatus.SCHEDULED || apt.status() == AppointmentStatus.CONFIRMED))
+                    .limit(5).toList());
+            return dashboard;
+        });
     }
 
     @GetMapping("/appointments")
-    public ResponseEntity<List<Appointment>> getMyAppointments(Authentication authentication) {
+    public ResponseEntity<List<AppointmentView>> getMyAppointments(Authentication authentication, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-        List<Appointment> appointments = appointmentService.getAppointmentsByPatientId(userPrincipal.getId());
-        return ResponseEntity.ok(appointments);
+        return conditionalGet.respond(ifNoneMatch, () -> resourceVersions.etag(ResourceVersions.user(userPrincipal.getId())),
+                () -> appointmentService.getAppointmentsByPatientId(userPrincipal.getId()));
+    }
+
+    @GetMapping("/appointments/page")
+    public ResponseEntity<?> getMyAppointmentsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        return ResponseEntity.ok(appointmentService.getAppointmentsPageByPatientId(userPrincipal.getId(), cursor, size));
+    }
+
+    @GetMapping("/appointments/history")
+    public ResponseEntity<?> getMyArchivedAppointmentsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        return ResponseEntity.ok(appointmentService.getArchivedAppointmentsPageByPatientId(userPrincipal.getId(), cursor, size));
     }
 
     @PostMapping("/appointments")
@@ -132,14 +168,58 @@ public class PatientController {
     }
 
     @GetMapping("/prescriptions")
-    public ResponseEntity<List<Prescription>> getMyPrescriptions(Authentication authentication) {
+    public ResponseEntity<List<PrescriptionView>> getMyPrescriptions(Authentication authentication, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        return conditionalGet.respond(ifNoneMatch, () -> resourceVersions.etag(ResourceVersions.user(userPrincipal.getId())),
+                () -> prescriptionService.getPrescriptionsByPatientId(userPrincipal.getId()));
+    }
+
+    @GetMapping("/prescriptions/page")
+    public ResponseEntity<?> getMyPrescriptionsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        return ResponseEntity.ok(prescriptionService.getPrescriptionsPageByPatientId(userPrincipal.getId(), cursor, size));
+    }
+
+    @GetMapping("/prescriptions/history")
+    public ResponseEntity<?> getMyArchivedPrescriptionsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-        List<Prescription> prescriptions = prescriptionService.getPrescriptionsByPatientId(userPrincipal.getId());
-        return ResponseEntity.ok(prescriptions);
+        return ResponseEntity.ok(prescriptionService.getArchivedPrescriptionsPageByPatientId(userPrincipal.getId(), cursor, size));
     }
 
     @GetMapping("/doctors")
-    public ResponseEntity<List<User>> getAllDoctors() {
-        return ResponseEntity.ok(userService.getDoctors());
+    public ResponseEntity<List<User>> getAllDoctors(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet.respond(ifNoneMatch, () -> resourceVersions.etag(ResourceVersions.role(Role.DOCTOR)), userService::getDoctors);
+    }
+
+    @GetMapping("/doctors/{doctorId}/availability")
+    public ResponseEntity<?> getDoctorAvailability(
+            @PathVariable Long doctorId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(availabilityService.getAvailability(doctorId, from, to != null ? to : from.plusDays(6)));
+    }
+
+    @GetMapping("/doctors/earliest")
+    public ResponseEntity<?> getEarliestSlots(
+            @RequestParam String specialization,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "10") int limit) {
+        LocalDateTime start = from != null ? from : LocalDateTime.now();
+        return ResponseEntity.ok(availabilityService.findEarliestSlots(specialization, start,
+                to != null ? to : start.plusDays(7), limit));
+    }
+
+    @GetMapping("/doctors/page")
+    public ResponseEntity<?> getDoctorsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(userService.getUsersPageByRole(Role.DOCTOR, cursor, size));
     }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.hospital.hms.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.hospital.hms.entity.AppointmentStatus;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Moves a set of appointments to one status: either the listed ids, or all of one doctor's
+ * appointments on one day.
+ */
+public class AppointmentTransitionRequest {
+    public static final int MAX_IDS = 1000;
+
+    @NotNull(message = "Status is required")
+    private AppointmentStatus status;
+
+    @Size(min = 1, max = MAX_IDS, message = "Between 1 and " + MAX_IDS + " ids per request")
+    private List<Long> ids;
+
+    private Long doctorId;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate date;
+
+    @AssertTrue(message = "Give either ids, or doctorId and date")
+    public boolean isSelectionValid() {
+        return ids != null ? doctorId == null && date == null : doctorId != null && date != null;
+    }
+
+    // Getters and Setters
+    public AppointmentStatus getStatus() { return status; }
+    public void setStatus(AppointmentStatus status) { this.status = status; }
+
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+
+    public Long getDoctorId() { return doctorId; }
+    public void setDoctorId(Long doctorId) { this.doctorId = doctorId; }
+
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+}
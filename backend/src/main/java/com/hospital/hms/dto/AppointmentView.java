@@ -0,0 +1,31 @@
+package com.hospital.hms.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.hospital.hms.entity.AppointmentStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model for appointment lists, selected column by column instead of loading both users.
+ */
+public record AppointmentView(Long id,
+                              @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") LocalDateTime appointmentDateTime,
+                              AppointmentStatus status,
+                              String reason,
+                              String notes,
+                              UserSummary patient,
+                              UserSummary doctor) {
+
+    // Used by JPQL constructor expressions
+    public AppointmentView(Long id, LocalDateTime appointmentDateTime, AppointmentStatus status, String reason, String notes,
+                           Long patientId, String patientFirstName, String patientLastName,
+                           Long doctorId, String doctorFirstName, String doctorLastName, String doctorSpecialization) {
+        this(id, appointmentDateTime, status, reason, notes,
+                new UserSummary(patientId, patientFirstName, patientLastName, null),
+                new UserSummary(doctorId, doctorFirstName, doctorLastName, doctorSpecialization));
+    }
+
+    public AppointmentView withStatus(AppointmentStatus status) {
+        return new AppointmentView(id, appointmentDateTime, status, reason, notes, patient, doctor);
+    }
+}
@@ -0,0 +1,30 @@
+package com.hospital.hms.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BulkAppointmentRequest {
+    public static final int MAX_ENTRIES = 1000;
+
+    @NotEmpty(message = "At least one appointment is required")
+    @Size(max = MAX_ENTRIES, message = "At most " + MAX_ENTRIES + " appointments per request")
+    @Valid
+    private List<Entry> appointments;
+
+    // An appointment booked on behalf of a patient, so the patient is named explicitly
+    public static class Entry extends AppointmentRequest {
+        @NotNull(message = "Patient ID is required")
+        private Long patientId;
+
+        public Long getPatientId() { return patientId; }
+        public void setPatientId(Long patientId) { this.patientId = patientId; }
+    }
+
+    // Getters and Setters
+    public List<Entry> getAppointments() { return appointments; }
+    public void setAppointments(List<Entry> appointments) { this.appointments = appointments; }
+}
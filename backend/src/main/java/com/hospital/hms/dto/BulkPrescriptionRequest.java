@@ -0,0 +1,30 @@
+package com.hospital.hms.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BulkPrescriptionRequest {
+    public static final int MAX_ENTRIES = 1000;
+
+    @NotEmpty(message = "At least one prescription is required")
+    @Size(max = MAX_ENTRIES, message = "At most " + MAX_ENTRIES + " prescriptions per request")
+    @Valid
+    private List<Entry> prescriptions;
+
+    // A prescription imported for any doctor, so the prescribing doctor is named explicitly
+    public static class Entry extends PrescriptionRequest {
+        @NotNull(message = "Doctor ID is required")
+        private Long doctorId;
+
+        public Long getDoctorId() { return doctorId; }
+        public void setDoctorId(Long doctorId) { this.doctorId = doctorId; }
+    }
+
+    // Getters and Setters
+    public List<Entry> getPrescriptions() { return prescriptions; }
+    public void setPrescriptions(List<Entry> prescriptions) { this.prescriptions = prescriptions; }
+}
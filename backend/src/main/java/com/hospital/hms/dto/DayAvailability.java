@@ -0,0 +1,13 @@
+package com.hospital.hms.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Start times on one day at which a doctor can still be booked.
+ */
+public record DayAvailability(LocalDate date, @JsonFormat(pattern = "HH:mm") List<LocalTime> slots) {
+}
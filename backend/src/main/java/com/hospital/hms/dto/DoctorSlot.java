@@ -0,0 +1,11 @@
+package com.hospital.hms.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * An open slot of a particular doctor.
+ */
+public record DoctorSlot(UserSummary doctor, @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") LocalDateTime start) {
+}
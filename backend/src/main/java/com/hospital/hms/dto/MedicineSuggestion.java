@@ -0,0 +1,9 @@
+package com.hospital.hms.dto;
+
+import java.util.List;
+
+/**
+ * An autocomplete suggestion for a prescription's medicine, with its most common dosages.
+ */
+public record MedicineSuggestion(String medicineName, List<String> dosages, long prescriptions, long prescribedByDoctor) {
+}
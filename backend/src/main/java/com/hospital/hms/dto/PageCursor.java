@@ -0,0 +1,63 @@
+package com.hospital.hms.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a page in a keyset-paginated listing, ordered by (timestamp, id)
+ * or by id alone, in which case the timestamp is null. The encoded form records which of the two
+ * orders it belongs to, and a listing rejects cursors of the other kind. Clients only ever see the
+ * encoded form.
+ */
+public record PageCursor(Order order, LocalDateTime at, Long id) {
+
+    public enum Order {
+        TIMESTAMP('t'),
+        ID('i');
+
+        private final char code;
+
+        Order(char code) {
+            this.code = code;
+        }
+    }
+
+    public static PageCursor byTimestamp(LocalDateTime at, Long id) {
+        return new PageCursor(Order.TIMESTAMP, at, id);
+    }
+
+    public static PageCursor byId(Long id) {
+        return new PageCursor(Order.ID, null, id);
+    }
+
+    public String encode() {
+        String raw = order.code + (at != null ? at.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor from a listing with the given order; a missing cursor is the first page.
+     */
+    public static PageCursor decode(String cursor, Order order) {
+        if (cursor == null || cursor.isBlank()) {
+            return new PageCursor(order, null, null);
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+        if (raw.isEmpty() || raw.charAt(0) != order.code) {
+            throw new IllegalArgumentException("Invalid page cursor for this listing");
+        }
+        try {
+            int separator = raw.indexOf('|');
+            String at = raw.substring(1, separator);
+            return new PageCursor(order, at.isEmpty() ? null : LocalDateTime.parse(at), Long.valueOf(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.hospital.hms.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A patient returned by the patient search, with the columns the search matches on.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PatientMatch(Long id, String firstName, String lastName, String username, String email, String phoneNumber) {
+}
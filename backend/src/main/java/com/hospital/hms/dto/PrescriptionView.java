@@ -0,0 +1,28 @@
+package com.hospital.hms.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model for prescription lists, selected column by column instead of loading both users.
+ */
+public record PrescriptionView(Long id,
+                               String medicineName,
+                               String dosage,
+                               String instructions,
+                               Integer duration,
+                               @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime prescribedDate,
+                               UserSummary patient,
+                               UserSummary doctor) {
+
+    // Used by JPQL constructor expressions
+    public PrescriptionView(Long id, String medicineName, String dosage, String instructions, Integer duration,
+                            LocalDateTime prescribedDate,
+                            Long patientId, String patientFirstName, String patientLastName,
+                            Long doctorId, String doctorFirstName, String doctorLastName, String doctorSpecialization) {
+        this(id, medicineName, dosage, instructions, duration, prescribedDate,
+                new UserSummary(patientId, patientFirstName, patientLastName, null),
+                new UserSummary(doctorId, doctorFirstName, doctorLastName, doctorSpecialization));
+    }
+}
@@ -0,0 +1,10 @@
+package com.hospital.hms.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * The few user columns shown next to an appointment or prescription.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserSummary(Long id, String firstName, String lastName, String specialization) {
+}
@@ -7,17 +7,27 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+        // Lets the no-show sweep range-scan overdue appointments by status
+        @Index(name = "idx_appointments_status_datetime", columnList = "status, appointment_datetime"),
+        @Index(name = "idx_appointments_doctor_datetime_status", columnList = "doctor_id, appointment_datetime, status"),
+        // A doctor's pages, in (appointment_datetime, id) order through the appended primary key
+        @Index(name = "idx_appointments_doctor_datetime", columnList = "doctor_id, appointment_datetime"),
+        @Index(name = "idx_appointments_patient_datetime", columnList = "patient_id, appointment_datetime"),
+        @Index(name = "idx_appointments_datetime_id", columnList = "appointment_datetime, id")
+})
 public class Appointment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "appointments_ids")
+    @TableGenerator(name = "appointments_ids", table = IdSequences.TABLE, pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "appointments", allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id", nullable = false)
     private User patient;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "doctor_id", nullable = false)
     private User doctor;
 
@@ -27,9 +37,13 @@ public class Appointment {
     private LocalDateTime appointmentDateTime;
 
     @Enumerated(EnumType.STRING)
+    @Column(columnDefinition = "ENUM('SCHEDULED', 'CONFIRMED', 'COMPLETED', 'CANCELLED', 'NO_SHOW')")
     private AppointmentStatus status = AppointmentStatus.SCHEDULED;
 
+    @Column(columnDefinition = "TEXT")
     private String reason;
+
+    @Column(columnDefinition = "TEXT")
     private String notes;
 
     @Column(name = "created_at")
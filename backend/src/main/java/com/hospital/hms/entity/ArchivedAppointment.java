@@ -0,0 +1,66 @@
+package com.hospital.hms.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * A closed appointment moved out of the appointments table by the archiver. Rows keep their
+ * original id and are only ever inserted and read with SQL, or removed with their users.
+ */
+@Entity
+@Immutable
+@Table(name = "appointments_archive", indexes = {
+        @Index(name = "idx_appointments_archive_patient", columnList = "patient_id, appointment_datetime"),
+        @Index(name = "idx_appointments_archive_doctor", columnList = "doctor_id, appointment_datetime")
+})
+public class ArchivedAppointment {
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "patient_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User patient;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "doctor_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User doctor;
+
+    @Column(name = "appointment_datetime")
+    private LocalDateTime appointmentDateTime;
+
+    @Enumerated(EnumType.STRING)
+    @Column(columnDefinition = "ENUM('SCHEDULED', 'CONFIRMED', 'COMPLETED', 'CANCELLED', 'NO_SHOW')")
+    private AppointmentStatus status;
+
+    @Column(columnDefinition = "TEXT")
+    private String reason;
+
+    @Column(columnDefinition = "TEXT")
+    private String notes;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    public Long getId() { return id; }
+    public User getPatient() { return patient; }
+    public User getDoctor() { return doctor; }
+    public LocalDateTime getAppointmentDateTime() { return appointmentDateTime; }
+    public AppointmentStatus getStatus() { return status; }
+    public String getReason() { return reason; }
+    public String getNotes() { return notes; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+}
@@ -0,0 +1,63 @@
+package com.hospital.hms.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * A finished prescription moved out of the prescriptions table by the archiver. Rows keep their
+ * original id and are only ever inserted and read with SQL, or removed with their users.
+ */
+@Entity
+@Immutable
+@Table(name = "prescriptions_archive", indexes = {
+        @Index(name = "idx_prescriptions_archive_patient", columnList = "patient_id, prescribed_date"),
+        @Index(name = "idx_prescriptions_archive_doctor", columnList = "doctor_id, prescribed_date")
+})
+public class ArchivedPrescription {
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "patient_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User patient;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "doctor_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User doctor;
+
+    private String medicineName;
+    private String dosage;
+    @Column(columnDefinition = "TEXT")
+    private String instructions;
+    private Integer duration; // in days
+
+    @Column(name = "prescribed_date")
+    private LocalDateTime prescribedDate;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    public Long getId() { return id; }
+    public User getPatient() { return patient; }
+    public User getDoctor() { return doctor; }
+    public String getMedicineName() { return medicineName; }
+    public String getDosage() { return dosage; }
+    public String getInstructions() { return instructions; }
+    public Integer getDuration() { return duration; }
+    public LocalDateTime getPrescribedDate() { return prescribedDate; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+}
@@ -0,0 +1,48 @@
+package com.hospital.hms.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change waiting to be pushed to the open event streams of every instance, or for user changes
+ * (which have no doctor or patient) only to their in-memory indexes. Written and polled with plain
+ * SQL by ChangeNotifier; mapped here so the schema includes the table.
+ */
+@Entity
+@Table(name = "change_notifications", indexes = {
+        @Index(name = "idx_change_notifications_created_at", columnList = "created_at")
+})
+public class ChangeNotification {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 32)
+    private String name;
+
+    @Column(name = "doctor_id")
+    private Long doctorId;
+
+    @Column(name = "patient_id")
+    private Long patientId;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public Long getId() { return id; }
+    public String getName() { return name; }
+    public Long getDoctorId() { return doctorId; }
+    public Long getPatientId() { return patientId; }
+    public String getPayload() { return payload; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,13 @@
+package com.hospital.hms.entity;
+
+/**
+ * Shared table of id blocks for every entity. MySQL has no sequences and IDENTITY columns keep
+ * Hibernate from batching inserts, so ids are reserved from this table a block at a time
+ * (pooled-lo: the stored value is the first id of the next block).
+ */
+public final class IdSequences {
+    public static final String TABLE = "id_sequences";
+    public static final int ALLOCATION_SIZE = 100;
+
+    private IdSequences() {}
+}
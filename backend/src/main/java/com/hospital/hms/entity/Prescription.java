@@ -7,17 +7,24 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "prescriptions")
+@Table(name = "prescriptions", indexes = {
+        // Lets the archiver range-scan prescriptions by age
+        @Index(name = "idx_prescriptions_prescribed_date", columnList = "prescribed_date"),
+        @Index(name = "idx_prescriptions_patient_date", columnList = "patient_id, prescribed_date"),
+        @Index(name = "idx_prescriptions_doctor_date", columnList = "doctor_id, prescribed_date")
+})
 public class Prescription {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "prescriptions_ids")
+    @TableGenerator(name = "prescriptions_ids", table = IdSequences.TABLE, pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "prescriptions", allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id", nullable = false)
     private User patient;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "doctor_id", nullable = false)
     private User doctor;
 
@@ -28,6 +35,7 @@ public class Prescription {
     private String dosage;
 
     @NotBlank(message = "Instructions are required")
+    @Column(columnDefinition = "TEXT")
     private String instructions;
 
     private Integer duration; // in days
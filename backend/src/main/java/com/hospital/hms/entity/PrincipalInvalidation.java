@@ -0,0 +1,29 @@
+package com.hospital.hms.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * When a user was last updated or deleted. Written and polled with plain SQL by
+ * PrincipalInvalidationRegistry; mapped here so the schema includes the table.
+ */
+@Entity
+@Table(name = "principal_invalidations", indexes = {
+        @Index(name = "idx_principal_invalidations_invalidated_at", columnList = "invalidated_at")
+})
+public class PrincipalInvalidation {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "invalidated_at", nullable = false)
+    private LocalDateTime invalidatedAt;
+
+    public Long getUserId() { return userId; }
+    public LocalDateTime getInvalidatedAt() { return invalidatedAt; }
+}
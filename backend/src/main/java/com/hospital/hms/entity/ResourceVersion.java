@@ -0,0 +1,24 @@
+package com.hospital.hms.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Write counter for one ETag scope. Written with plain SQL by ResourceVersions; mapped here so
+ * the schema includes the table.
+ */
+@Entity
+@Table(name = "resource_versions")
+public class ResourceVersion {
+    @Id
+    @Column(length = 64)
+    private String scope;
+
+    @Column(nullable = false)
+    private long version;
+
+    public String getScope() { return scope; }
+    public long getVersion() { return version; }
+}
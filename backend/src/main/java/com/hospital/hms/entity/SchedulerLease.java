@@ -0,0 +1,30 @@
+package com.hospital.hms.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row-per-job lease that lets only one application instance run a background job at a time.
+ * Written with plain SQL by SchedulerLeases; mapped here so the schema includes the table.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+public class SchedulerLease {
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false, length = 128)
+    private String owner;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public String getName() { return name; }
+    public String getOwner() { return owner; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+}
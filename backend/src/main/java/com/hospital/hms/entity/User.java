@@ -5,15 +5,28 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_role_id", columnList = "role, id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class User {
+    // Caffeine looks regions up by config path, so the name must not contain dots
+    public static final String CACHE_REGION = "users";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "users_ids")
+    @TableGenerator(name = "users_ids", table = IdSequences.TABLE, pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "users", allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @NotBlank(message = "Username is required")
@@ -39,7 +52,7 @@ public class User {
     private String phoneNumber;
 
     @Enumerated(EnumType.STRING)
-    @Column(name = "role")
+    @Column(name = "role", columnDefinition = "ENUM('ADMIN', 'DOCTOR', 'PATIENT')")
     private Role role;
 
     @Column(name = "created_at")
@@ -53,9 +66,14 @@ public class User {
     private String licenseNumber;
     
     // For Patient specific fields
+    @Column(columnDefinition = "TEXT")
     private String address;
     private String emergencyContact;
 
+    // Set for imported accounts created without a password; they cannot sign in until one is set
+    @Column(name = "password_reset_required")
+    private boolean passwordResetRequired;
+
     @OneToMany(mappedBy = "patient", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
     private List<Appointment> patientAppointments;
@@ -139,6 +157,9 @@ public class User {
     public String getEmergencyContact() { return emergencyContact; }
     public void setEmergencyContact(String emergencyContact) { this.emergencyContact = emergencyContact; }
 
+    public boolean isPasswordResetRequired() { return passwordResetRequired; }
+    public void setPasswordResetRequired(boolean passwordResetRequired) { this.passwordResetRequired = passwordResetRequired; }
+
     public List<Appointment> getPatientAppointments() { return patientAppointments; }
     public void setPatientAppointments(List<Appointment> patientAppointments) { this.patientAppointments = patientAppointments; }
 
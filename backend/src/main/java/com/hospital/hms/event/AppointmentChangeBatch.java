@@ -0,0 +1,11 @@
+package com.hospital.hms.event;
+
+import java.util.List;
+
+/**
+ * Published by AppointmentService, ArchiveService, ImportService and, for a deleted user's
+ * appointments, UserService once a bulk write has committed, instead of one AppointmentChangedEvent
+ * per row, so listeners can record the whole batch with one statement.
+ */
+public record AppointmentChangeBatch(List<AppointmentChangedEvent> changes) {
+}
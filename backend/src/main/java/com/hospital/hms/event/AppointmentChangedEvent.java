@@ -0,0 +1,40 @@
+package com.hospital.hms.event;
+
+import com.hospital.hms.dto.AppointmentView;
+import com.hospital.hms.entity.Appointment;
+import com.hospital.hms.entity.AppointmentStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by AppointmentService after an appointment has been written.
+ * previousStatus is null for newly created appointments.
+ */
+public record AppointmentChangedEvent(ChangeType type,
+                                      Long appointmentId,
+                                      Long doctorId,
+                                      Long patientId,
+                                      LocalDateTime appointmentDateTime,
+                                      AppointmentStatus previousStatus,
+                                      AppointmentStatus status) {
+
+    public static AppointmentChangedEvent of(ChangeType type, Appointment appointment, AppointmentStatus previousStatus) {
+        return new AppointmentChangedEvent(type,
+                appointment.getId(),
+                appointment.getDoctor().getId(),
+                appointment.getPatient().getId(),
+                appointment.getAppointmentDateTime(),
+                previousStatus,
+                appointment.getStatus());
+    }
+
+    public static AppointmentChangedEvent of(ChangeType type, AppointmentView appointment, AppointmentStatus previousStatus) {
+        return new AppointmentChangedEvent(type,
+                appointment.id(),
+                appointment.doctor().id(),
+                appointment.patient().id(),
+                appointment.appointmentDateTime(),
+                previousStatus,
+                appointment.status());
+    }
+}
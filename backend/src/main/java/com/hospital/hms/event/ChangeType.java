@@ -0,0 +1,9 @@
+package com.hospital.hms.event;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    // Moved to an archive table: gone from the current lists but still readable as history
+    ARCHIVED
+}
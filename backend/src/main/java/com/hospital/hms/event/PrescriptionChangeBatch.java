@@ -0,0 +1,11 @@
+package com.hospital.hms.event;
+
+import java.util.List;
+
+/**
+ * Published by PrescriptionService, ArchiveService and, for a deleted user's prescriptions,
+ * UserService once a bulk write has committed, instead of one PrescriptionChangedEvent per row, so
+ * listeners can record the whole batch with one statement.
+ */
+public record PrescriptionChangeBatch(List<PrescriptionChangedEvent> changes) {
+}
@@ -0,0 +1,23 @@
+package com.hospital.hms.event;
+
+import com.hospital.hms.entity.Prescription;
+
+/**
+ * Published by PrescriptionService after a prescription has been written.
+ */
+public record PrescriptionChangedEvent(ChangeType type,
+                                       Long prescriptionId,
+                                       Long doctorId,
+                                       Long patientId,
+                                       String medicineName,
+                                       String dosage) {
+
+    public static PrescriptionChangedEvent of(ChangeType type, Prescription prescription) {
+        return new PrescriptionChangedEvent(type,
+                prescription.getId(),
+                prescription.getDoctor().getId(),
+                prescription.getPatient().getId(),
+                prescription.getMedicineName(),
+                prescription.getDosage());
+    }
+}
@@ -0,0 +1,11 @@
+package com.hospital.hms.event;
+
+import java.util.List;
+
+/**
+ * Published on every instance by ChangeNotifier with the appointment changes it reads back from the
+ * change_notifications table, in feed order and including the changes the instance made itself, so
+ * in-memory state can follow writes made through other instances.
+ */
+public record SharedAppointmentChanges(List<AppointmentChangedEvent> changes) {
+}
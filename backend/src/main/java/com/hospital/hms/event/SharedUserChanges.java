@@ -0,0 +1,10 @@
+package com.hospital.hms.event;
+
+import java.util.List;
+
+/**
+ * Published on every instance by ChangeNotifier with the user changes it reads back from the
+ * change_notifications table, in feed order and including the changes the instance made itself.
+ */
+public record SharedUserChanges(List<UserChangedEvent> changes) {
+}
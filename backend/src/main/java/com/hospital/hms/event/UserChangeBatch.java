@@ -0,0 +1,10 @@
+package com.hospital.hms.event;
+
+import java.util.List;
+
+/**
+ * Published by ImportService once a bulk write has committed, instead of one
+ * UserChangedEvent per row, so listeners can record the whole batch with one statement.
+ */
+public record UserChangeBatch(List<UserChangedEvent> changes) {
+}
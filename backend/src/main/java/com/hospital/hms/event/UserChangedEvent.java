@@ -0,0 +1,10 @@
+package com.hospital.hms.event;
+
+import com.hospital.hms.entity.Role;
+
+/**
+ * Published by UserService after a user has been written. Deleting a user also
+ * removes their appointments and prescriptions through cascading.
+ */
+public record UserChangedEvent(ChangeType type, Long userId, Role role) {
+}
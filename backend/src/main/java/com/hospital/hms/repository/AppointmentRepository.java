@@ -1,18 +1,36 @@
 package com.hospital.hms.repository;
 
+import com.hospital.hms.dto.AppointmentView;
 import com.hospital.hms.entity.Appointment;
 import com.hospital.hms.entity.AppointmentStatus;
 import com.hospital.hms.entity.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+    // LEFT JOINs (every appointment has both users) keep appointments as the first table, so sorted
+    // and paged lists read its indexes in order instead of sorting every row joined from users
+    String VIEW_SELECT = "SELECT new com.hospital.hms.dto.AppointmentView(a.id, a.appointmentDateTime, a.status, a.reason, a.notes, " +
+            "p.id, p.firstName, p.lastName, d.id, d.firstName, d.lastName, d.specialization) " +
+            "FROM Appointment a LEFT JOIN a.patient p LEFT JOIN a.doctor d ";
+
     List<Appointment> findByPatient(User patient);
     List<Appointment> findByDoctor(User doctor);
     List<Appointment> findByPatientId(Long patientId);
@@ -23,10 +41,104 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     List<Appointment> findByDoctorIdAndAppointmentDateTimeBetween(@Param("doctorId") Long doctorId, 
                                                                  @Param("startTime") LocalDateTime startTime, 
                                                                  @Param("endTime") LocalDateTime endTime);
+
+    // Appointments other than excludeId that occupy the doctor between from and to (inclusive)
+    @Query("SELECT COUNT(a) FROM Appointment a WHERE a.doctor.id = :doctorId " +
+           "AND a.appointmentDateTime BETWEEN :from AND :to AND a.status <> :freeStatus " +
+           "AND (:excludeId IS NULL OR a.id <> :excludeId)")
+    long countBookingsBetween(@Param("doctorId") Long doctorId, @Param("from") LocalDateTime from,
+                              @Param("to") LocalDateTime to, @Param("freeStatus") AppointmentStatus freeStatus,
+                              @Param("excludeId") Long excludeId);
     
     @Query("SELECT a FROM Appointment a WHERE a.patient.id = :patientId ORDER BY a.appointmentDateTime DESC")
     List<Appointment> findByPatientIdOrderByAppointmentDateTimeDesc(@Param("patientId") Long patientId);
     
     @Query("SELECT a FROM Appointment a WHERE a.doctor.id = :doctorId ORDER BY a.appointmentDateTime DESC")
     List<Appointment> findByDoctorIdOrderByAppointmentDateTimeDesc(@Param("doctorId") Long doctorId);
+
+    @Query("SELECT a.id, a.doctor.id, a.patient.id, a.appointmentDateTime FROM Appointment a WHERE a.appointmentDateTime >= :from AND a.status <> :excludedStatus")
+    List<Object[]> findScheduleEntriesFrom(@Param("from") LocalDateTime from,
+                                           @Param("excludedStatus") AppointmentStatus excludedStatus);
+
+    @Query(VIEW_SELECT + "ORDER BY a.id DESC")
+    List<AppointmentView> findRecentViews(Pageable pageable);
+
+    @Query(VIEW_SELECT + "ORDER BY a.id")
+    List<AppointmentView> findAllViews();
+
+    @Query(VIEW_SELECT + "WHERE p.id = :patientId ORDER BY a.appointmentDateTime DESC")
+    List<AppointmentView> findViewsByPatientId(@Param("patientId") Long patientId);
+
+    @Query(VIEW_SELECT + "WHERE d.id = :doctorId ORDER BY a.appointmentDateTime DESC")
+    List<AppointmentView> findViewsByDoctorId(@Param("doctorId") Long doctorId);
+
+    @Query(VIEW_SELECT + "WHERE a.id = :id")
+    Optional<AppointmentView> findViewById(@Param("id") Long id);
+
+    // Single-statement partial updates; updatedAt is passed in because @PreUpdate does not run for them
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = :status, a.updatedAt = :updatedAt WHERE a.id = :id AND a.status = :previousStatus")
+    int updateStatus(@Param("id") Long id, @Param("previousStatus") AppointmentStatus previousStatus,
+                     @Param("status") AppointmentStatus status, @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Appointment a SET a.notes = :notes, a.updatedAt = :updatedAt WHERE a.id = :id")
+    int updateNotes(@Param("id") Long id, @Param("notes") String notes, @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = :status, a.updatedAt = :updatedAt WHERE a.id IN :ids")
+    int updateStatusByIds(@Param("ids") Collection<Long> ids, @Param("status") AppointmentStatus status,
+                          @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Rows a bulk transition will change, locked until it commits: id, doctor id, patient id, time, status
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a.id, a.doctor.id, a.patient.id, a.appointmentDateTime, a.status FROM Appointment a " +
+           "WHERE a.id IN :ids AND a.status IN :fromStatuses")
+    List<Object[]> lockTransitionCandidatesByIds(@Param("ids") Collection<Long> ids,
+                                                 @Param("fromStatuses") Collection<AppointmentStatus> fromStatuses);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a.id, a.doctor.id, a.patient.id, a.appointmentDateTime, a.status FROM Appointment a " +
+           "WHERE a.doctor.id = :doctorId AND a.appointmentDateTime >= :from AND a.appointmentDateTime < :to " +
+           "AND a.status IN :fromStatuses")
+    List<Object[]> lockTransitionCandidatesByDoctor(@Param("doctorId") Long doctorId, @Param("from") LocalDateTime from,
+                                                    @Param("to") LocalDateTime to,
+                                                    @Param("fromStatuses") Collection<AppointmentStatus> fromStatuses);
+
+    // Ranges over idx_appointments_status_datetime, oldest first
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a.id, a.doctor.id, a.patient.id, a.appointmentDateTime, a.status FROM Appointment a " +
+           "WHERE a.status IN :fromStatuses AND a.appointmentDateTime < :before ORDER BY a.appointmentDateTime, a.id")
+    List<Object[]> lockOverdue(@Param("fromStatuses") Collection<AppointmentStatus> fromStatuses,
+                               @Param("before") LocalDateTime before, Pageable pageable);
+
+    // Integer.MIN_VALUE makes MySQL Connector/J stream the rows one at a time instead of reading the
+    // whole result into memory; the connection can run nothing else until the stream is closed
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.patient JOIN FETCH a.doctor ORDER BY a.id")
+    Stream<Appointment> streamAllForExport();
+
+    @Query(VIEW_SELECT + "WHERE (:at IS NULL OR a.appointmentDateTime < :at OR (a.appointmentDateTime = :at AND a.id < :id)) " +
+           "ORDER BY a.appointmentDateTime DESC, a.id DESC")
+    List<AppointmentView> findPageBefore(@Param("at") LocalDateTime at, @Param("id") Long id, Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE d.id = :doctorId " +
+           "AND (:at IS NULL OR a.appointmentDateTime < :at OR (a.appointmentDateTime = :at AND a.id < :id)) " +
+           "ORDER BY a.appointmentDateTime DESC, a.id DESC")
+    List<AppointmentView> findPageByDoctorIdBefore(@Param("doctorId") Long doctorId, @Param("at") LocalDateTime at,
+                                               @Param("id") Long id, Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE p.id = :patientId " +
+           "AND (:at IS NULL OR a.appointmentDateTime < :at OR (a.appointmentDateTime = :at AND a.id < :id)) " +
+           "ORDER BY a.appointmentDateTime DESC, a.id DESC")
+    List<AppointmentView> findPageByPatientIdBefore(@Param("patientId") Long patientId, @Param("at") LocalDateTime at,
+                                                @Param("id") Long id, Pageable pageable);
 }
\ No newline at end of file
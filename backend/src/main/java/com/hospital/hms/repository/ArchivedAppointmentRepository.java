@@ -0,0 +1,43 @@
+package com.hospital.hms.repository;
+
+import com.hospital.hms.dto.AppointmentView;
+import com.hospital.hms.entity.ArchivedAppointment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface ArchivedAppointmentRepository extends JpaRepository<ArchivedAppointment, Long> {
+    String VIEW_SELECT = "SELECT new com.hospital.hms.dto.AppointmentView(a.id, a.appointmentDateTime, a.status, a.reason, a.notes, " +
+            "p.id, p.firstName, p.lastName, d.id, d.firstName, d.lastName, d.specialization) " +
+            "FROM ArchivedAppointment a JOIN a.patient p JOIN a.doctor d ";
+
+    @Query(VIEW_SELECT + "WHERE p.id = :patientId " +
+           "AND (:at IS NULL OR a.appointmentDateTime < :at OR (a.appointmentDateTime = :at AND a.id < :id)) " +
+           "ORDER BY a.appointmentDateTime DESC, a.id DESC")
+    List<AppointmentView> findPageByPatientIdBefore(@Param("patientId") Long patientId, @Param("at") LocalDateTime at,
+                                                @Param("id") Long id, Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE d.id = :doctorId " +
+           "AND (:at IS NULL OR a.appointmentDateTime < :at OR (a.appointmentDateTime = :at AND a.id < :id)) " +
+           "ORDER BY a.appointmentDateTime DESC, a.id DESC")
+    List<AppointmentView> findPageByDoctorIdBefore(@Param("doctorId") Long doctorId, @Param("at") LocalDateTime at,
+                                               @Param("id") Long id, Pageable pageable);
+
+    // Streamed row by row like the live table's export; see AppointmentRepository.streamAllForExport
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM ArchivedAppointment a JOIN FETCH a.patient JOIN FETCH a.doctor ORDER BY a.id")
+    Stream<ArchivedAppointment> streamAllForExport();
+}
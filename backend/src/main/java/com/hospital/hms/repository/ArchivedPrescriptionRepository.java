@@ -0,0 +1,43 @@
+package com.hospital.hms.repository;
+
+import com.hospital.hms.dto.PrescriptionView;
+import com.hospital.hms.entity.ArchivedPrescription;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface ArchivedPrescriptionRepository extends JpaRepository<ArchivedPrescription, Long> {
+    String VIEW_SELECT = "SELECT new com.hospital.hms.dto.PrescriptionView(p.id, p.medicineName, p.dosage, p.instructions, " +
+            "p.duration, p.prescribedDate, pt.id, pt.firstName, pt.lastName, d.id, d.firstName, d.lastName, d.specialization) " +
+            "FROM ArchivedPrescription p JOIN p.patient pt JOIN p.doctor d ";
+
+    @Query(VIEW_SELECT + "WHERE pt.id = :patientId " +
+           "AND (:at IS NULL OR p.prescribedDate < :at OR (p.prescribedDate = :at AND p.id < :id)) " +
+           "ORDER BY p.prescribedDate DESC, p.id DESC")
+    List<PrescriptionView> findPageByPatientIdBefore(@Param("patientId") Long patientId, @Param("at") LocalDateTime at,
+                                                 @Param("id") Long id, Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE d.id = :doctorId " +
+           "AND (:at IS NULL OR p.prescribedDate < :at OR (p.prescribedDate = :at AND p.id < :id)) " +
+           "ORDER BY p.prescribedDate DESC, p.id DESC")
+    List<PrescriptionView> findPageByDoctorIdBefore(@Param("doctorId") Long doctorId, @Param("at") LocalDateTime at,
+                                                @Param("id") Long id, Pageable pageable);
+
+    // Streamed row by row like the live table's export; see PrescriptionRepository.streamAllForExport
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM ArchivedPrescription p JOIN FETCH p.patient JOIN FETCH p.doctor ORDER BY p.id")
+    Stream<ArchivedPrescription> streamAllForExport();
+}
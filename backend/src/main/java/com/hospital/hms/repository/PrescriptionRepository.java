@@ -1,16 +1,28 @@
 package com.hospital.hms.repository;
 
+import com.hospital.hms.dto.PrescriptionView;
 import com.hospital.hms.entity.Prescription;
 import com.hospital.hms.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PrescriptionRepository extends JpaRepository<Prescription, Long> {
+    // LEFT JOINs keep prescriptions as the first table; see AppointmentRepository.VIEW_SELECT
+    String VIEW_SELECT = "SELECT new com.hospital.hms.dto.PrescriptionView(p.id, p.medicineName, p.dosage, p.instructions, " +
+            "p.duration, p.prescribedDate, pt.id, pt.firstName, pt.lastName, d.id, d.firstName, d.lastName, d.specialization) " +
+            "FROM Prescription p LEFT JOIN p.patient pt LEFT JOIN p.doctor d ";
+
     List<Prescription> findByPatient(User patient);
     List<Prescription> findByDoctor(User doctor);
     List<Prescription> findByPatientId(Long patientId);
@@ -21,4 +33,50 @@ public interface PrescriptionRepository extends JpaRepository<Prescription, Long
     
     @Query("SELECT p FROM Prescription p WHERE p.doctor.id = :doctorId ORDER BY p.prescribedDate DESC")
     List<Prescription> findByDoctorIdOrderByPrescribedDateDesc(@Param("doctorId") Long doctorId);
+
+    @Query(VIEW_SELECT + "ORDER BY p.id DESC")
+    List<PrescriptionView> findRecentViews(Pageable pageable);
+
+    @Query(VIEW_SELECT + "ORDER BY p.id")
+    List<PrescriptionView> findAllViews();
+
+    @Query(VIEW_SELECT + "WHERE pt.id = :patientId ORDER BY p.prescribedDate DESC")
+    List<PrescriptionView> findViewsByPatientId(@Param("patientId") Long patientId);
+
+    @Query(VIEW_SELECT + "WHERE d.id = :doctorId ORDER BY p.prescribedDate DESC")
+    List<PrescriptionView> findViewsByDoctorId(@Param("doctorId") Long doctorId);
+
+    // Integer.MIN_VALUE makes MySQL Connector/J stream the rows one at a time instead of reading the
+    // whole result into memory; the connection can run nothing else until the stream is closed
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Prescription p JOIN FETCH p.patient JOIN FETCH p.doctor ORDER BY p.id")
+    Stream<Prescription> streamAllForExport();
+
+    // Medicine name, dosage, doctor id and how many prescriptions share them
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p.medicineName, p.dosage, p.doctor.id, COUNT(p) FROM Prescription p " +
+           "GROUP BY p.medicineName, p.dosage, p.doctor.id")
+    Stream<Object[]> streamMedicineUsage();
+
+    @Query(VIEW_SELECT + "WHERE (:at IS NULL OR p.prescribedDate < :at OR (p.prescribedDate = :at AND p.id < :id)) " +
+           "ORDER BY p.prescribedDate DESC, p.id DESC")
+    List<PrescriptionView> findPageBefore(@Param("at") LocalDateTime at, @Param("id") Long id, Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE d.id = :doctorId " +
+           "AND (:at IS NULL OR p.prescribedDate < :at OR (p.prescribedDate = :at AND p.id < :id)) " +
+           "ORDER BY p.prescribedDate DESC, p.id DESC")
+    List<PrescriptionView> findPageByDoctorIdBefore(@Param("doctorId") Long doctorId, @Param("at") LocalDateTime at,
+                                                @Param("id") Long id, Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE pt.id = :patientId " +
+           "AND (:at IS NULL OR p.prescribedDate < :at OR (p.prescribedDate = :at AND p.id < :id)) " +
+           "ORDER BY p.prescribedDate DESC, p.id DESC")
+    List<PrescriptionView> findPageByPatientIdBefore(@Param("patientId") Long patientId, @Param("at") LocalDateTime at,
+                                                 @Param("id") Long id, Pageable pageable);
 }
\ No newline at end of file
@@ -1,19 +1,64 @@
 package com.hospital.hms.repository;
 
+import com.hospital.hms.dto.PatientMatch;
 import com.hospital.hms.entity.User;
 import com.hospital.hms.entity.Role;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    String DIRECTORY_CACHE_REGION = "userDirectory";
+
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
+    List<User> findByUsernameIn(Collection<String> usernames);
+
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = DIRECTORY_CACHE_REGION)
+    })
     List<User> findByRole(Role role);
+
     List<User> findByRoleAndIdNot(Role role, Long id);
+
+    // Locks the rows until the transaction ends, in id order so two callers cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids ORDER BY u.id")
+    List<Long> lockByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT u FROM User u WHERE (:afterId IS NULL OR u.id > :afterId) ORDER BY u.id")
+    List<User> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT u FROM User u WHERE u.role = :role AND (:afterId IS NULL OR u.id > :afterId) ORDER BY u.id")
+    List<User> findPageByRoleAfter(@Param("role") Role role, @Param("afterId") Long afterId, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.hospital.hms.dto.PatientMatch(u.id, u.firstName, u.lastName, u.username, u.email, u.phoneNumber) " +
+           "FROM User u WHERE u.role = :role")
+    Stream<PatientMatch> streamMatchesByRole(@Param("role") Role role);
 }
\ No newline at end of file
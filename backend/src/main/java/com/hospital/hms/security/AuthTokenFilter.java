@@ -23,6 +23,9 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private PrincipalInvalidationRegistry invalidationRegistry;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
     @Override
@@ -30,10 +33,13 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            JwtUtils.VerifiedToken token = jwt != null ? jwtUtils.verify(jwt) : null;
+            if (token != null) {
+                UserPrincipal principal = jwtUtils.principalFromClaims(token);
+                UserDetails userDetails = principal != null
+                        && !invalidationRegistry.isInvalidated(principal.getId(), token.issuedAtMillis())
+                        ? principal
+                        : userDetailsService.loadUserByUsername(token.subject());
                 UsernamePasswordAuthenticationToken authentication = 
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -1,34 +1,122 @@
 package com.hospital.hms.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_ROLE = "role";
+    private static final String CLAIM_EMAIL = "email";
+    private static final String CLAIM_FIRST_NAME = "firstName";
+    private static final String CLAIM_LAST_NAME = "lastName";
+
     @Value("${app.jwtSecret}")
     private String jwtSecret;
 
     @Value("${app.jwtExpirationInMs}")
     private int jwtExpirationInMs;
 
+    // When enabled, tokens carry the user's id, role and names so requests need no user lookup
+    @Value("${app.jwt.embedClaims:false}")
+    private boolean embedClaims;
+
+    // Maximum number of verified tokens kept in memory; 0 disables the cache
+    @Value("${app.jwt.verifiedCacheSize:10000}")
+    private int verifiedCacheSize;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Key signingKey;
+    private JwtParser jwtParser;
+    private Timer cacheHitTimer;
+    private Timer cacheMissTimer;
+
+    // Keyed by the token's SHA-256; null when the cache is disabled
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    /**
+     * What a request needs from a verified token, copied out of its claims. Immutable, so one cached
+     * instance can be shared by concurrent requests. The embedded principal fields are null unless
+     * the token was issued with claims embedding on.
+     */
+    public record VerifiedToken(String subject, Long issuedAtMillis, long expiresAtMillis,
+                                Long userId, String role, String email, String firstName, String lastName) {
+
+        static VerifiedToken of(Claims claims) {
+            Number userId = claims.get(CLAIM_USER_ID, Number.class);
+            return new VerifiedToken(claims.getSubject(),
+                    claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : null,
+                    claims.getExpiration().getTime(),
+                    userId != null ? userId.longValue() : null,
+                    claims.get(CLAIM_ROLE, String.class),
+                    claims.get(CLAIM_EMAIL, String.class),
+                    claims.get(CLAIM_FIRST_NAME, String.class),
+                    claims.get(CLAIM_LAST_NAME, String.class));
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        // The key and parser are immutable and thread-safe, so build them once
+        signingKey = key();
+        jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        if (verifiedCacheSize > 0) {
+            // Bounded with size-based eviction of the least used tokens; each entry expires with its token
+            verifiedTokens = Caffeine.newBuilder()
+                    .maximumSize(verifiedCacheSize)
+                    .expireAfter(new TokenExpiry())
+                    .build();
+        }
+
+        cacheHitTimer = Timer.builder("hms.jwt.verification").tag("cache", "hit")
+                .description("Time to verify a bearer token").register(meterRegistry);
+        cacheMissTimer = Timer.builder("hms.jwt.verification").tag("cache", "miss")
+                .description("Time to verify a bearer token").register(meterRegistry);
+    }
+
     public String generateJwtToken(Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder();
+        if (embedClaims) {
+            builder.claim(CLAIM_USER_ID, userPrincipal.getId())
+                    .claim(CLAIM_ROLE, userPrincipal.getAuthorities().iterator().next().getAuthority())
+                    .claim(CLAIM_EMAIL, userPrincipal.getEmail())
+                    .claim(CLAIM_FIRST_NAME, userPrincipal.getFirstName())
+                    .claim(CLAIM_LAST_NAME, userPrincipal.getLastName());
+        }
+
+        return builder
                 .setSubject((userPrincipal.getUsername()))
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationInMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -54,25 +142,103 @@ public class JwtUtils {
         }
     }
 
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
-    }
+    /**
+     * Verifies the token signature and expiry and returns what it carries, or null if the token is not
+     * valid. Tokens that were verified before are answered from a bounded cache until they expire.
+     */
+    public VerifiedToken verify(String token) {
+        long start = System.nanoTime();
+        String digest = verifiedTokens != null ? digest(token) : null;
+        if (digest != null) {
+            VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+            if (cached != null) {
+                cacheHitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return cached;
+            }
+        }
 
-    public boolean validateJwtToken(String authToken) {
+        Claims claims;
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-            return true;
+            claims = jwtParser.parseClaimsJws(token).getBody();
+            cacheMissTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
+            return null;
         } catch (ExpiredJwtException e) {
             logger.error("JWT token is expired: {}", e.getMessage());
+            return null;
         } catch (UnsupportedJwtException e) {
             logger.error("JWT token is unsupported: {}", e.getMessage());
+            return null;
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
+            return null;
+        } catch (JwtException e) {
+            logger.error("JWT token verification failed: {}", e.getMessage());
+            return null;
+        }
+        if (claims.getExpiration() == null) {
+            logger.error("JWT token has no expiry");
+            return null;
         }
 
-        return false;
+        VerifiedToken verified = VerifiedToken.of(claims);
+        if (digest != null) {
+            verifiedTokens.put(digest, verified);
+        }
+        return verified;
+    }
+
+    /**
+     * Builds a principal from the claims embedded at sign-in, or returns null if claims
+     * embedding is disabled or the token was issued without them.
+     */
+    public UserPrincipal principalFromClaims(VerifiedToken token) {
+        if (!embedClaims || token.userId() == null || token.role() == null) {
+            return null;
+        }
+        return new UserPrincipal(
+                token.userId(),
+                token.subject(),
+                token.email(),
+                token.firstName(),
+                token.lastName(),
+                null,
+                Collections.singletonList(new SimpleGrantedAuthority(token.role())));
+    }
+
+    public String getUserNameFromJwtToken(String token) {
+        VerifiedToken verified = verify(token);
+        return verified != null ? verified.subject() : null;
+    }
+
+    public boolean validateJwtToken(String authToken) {
+        return verify(authToken) != null;
+    }
+
+    private static final class TokenExpiry implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String digest, VerifiedToken token, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, token.expiresAtMillis() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, VerifiedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(digest, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
     }
-}
\ No newline at end of file
+}
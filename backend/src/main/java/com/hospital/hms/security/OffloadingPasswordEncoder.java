@@ -0,0 +1,135 @@
+package com.hospital.hms.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt hashing and verification on a bounded, CPU-sized pool instead of the calling
+ * request thread. When the pool and its queue are full, callers fail fast with
+ * {@link PasswordHashingRejectedException} rather than piling up behind a login burst. The timeout
+ * only bounds the wait in the queue: BCrypt cannot be interrupted, so a hash that has started is
+ * always waited for, and one that is still queued when the timeout passes is taken off the queue.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(OffloadingPasswordEncoder.class);
+
+    private static final int MIN_STRENGTH = 10;
+    private static final int MAX_STRENGTH = 16;
+
+    private final BCryptPasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    public OffloadingPasswordEncoder(int strength, int threads, int queueCapacity, long timeoutMillis) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.timeoutMillis = timeoutMillis;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        logger.info("Password hashing uses BCrypt strength {} on {} threads with a queue of {}", strength, threads, queueCapacity);
+    }
+
+    /**
+     * Picks the highest BCrypt strength whose hash time stays within the target, never going below
+     * the BCrypt default of 10 so existing hashes are not weakened.
+     */
+    public static int calibrateStrength(long targetMillis) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_STRENGTH);
+        probe.encode("calibration-warmup");
+
+        int samples = 3;
+        long start = System.nanoTime();
+        for (int i = 0; i < samples; i++) {
+            probe.encode("calibration-sample-" + i);
+        }
+        double millisAtMinStrength = (System.nanoTime() - start) / 1_000_000.0 / samples;
+
+        // Each strength step doubles the work
+        int strength = MIN_STRENGTH;
+        while (strength < MAX_STRENGTH && millisAtMinStrength * (1L << (strength + 1 - MIN_STRENGTH)) <= targetMillis) {
+            strength++;
+        }
+        logger.info("BCrypt strength {} hashes in {} ms; calibrated strength {} for a {} ms target",
+                MIN_STRENGTH, Math.round(millisAtMinStrength), strength, targetMillis);
+        return strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword));
+    }
+
+    /**
+     * Hashes on the calling thread, for batch jobs that run their own workers and must not
+     * compete with sign-ins for the request pool.
+     */
+    public String encodeOnCallingThread(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // Only inspects the stored hash prefix, so there is no need to leave the calling thread
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        try {
+            executor.execute(future);
+        } catch (RejectedExecutionException e) {
+            throw new PasswordHashingRejectedException("Server is busy, please try again shortly");
+        }
+
+        try {
+            try {
+                return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (executor.remove(future)) {
+                    throw new PasswordHashingRejectedException("Server is busy, please try again shortly");
+                }
+                // Already running, and finishes within one hash time
+                return future.get();
+            }
+        } catch (InterruptedException e) {
+            executor.remove(future);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingRejectedException("Password hashing was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
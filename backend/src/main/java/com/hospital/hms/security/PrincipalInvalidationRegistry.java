@@ -0,0 +1,113 @@
+package com.hospital.hms.security;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers when a user was last updated or deleted so that principals embedded in tokens
+ * issued before that moment are not trusted. The times are kept in the principal_invalidations
+ * table, written with the change itself, and every instance polls the table, so a change made
+ * through one instance stops the old tokens on all of them within app.jwt.invalidationPollMillis.
+ * Entries only need to outlive the tokens they guard, so they are dropped once a token issued at
+ * that time would have expired.
+ */
+@Component
+public class PrincipalInvalidationRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalInvalidationRegistry.class);
+
+    private static final String TABLE = "principal_invalidations";
+    // Rows are read again for this long after the poll that could first have seen them, in case
+    // their transaction committed after it
+    private static final long LATE_COMMIT_MILLIS = 60000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.jwtExpirationInMs}")
+    private int jwtExpirationInMs;
+
+    // Nothing trusts embedded principals otherwise, so there is no need to poll
+    @Value("${app.jwt.embedClaims:false}")
+    private boolean embedClaims;
+
+    private final Map<Long, Long> invalidatedAtMillis = new ConcurrentHashMap<>();
+
+    // The database's UTC time at the last successful poll
+    private volatile LocalDateTime polledAt;
+
+    // Loaded before requests are served, so tokens of users changed before this instance started are not trusted
+    @PostConstruct
+    public void init() {
+        poll();
+    }
+
+    /**
+     * Records that the user changed. Call it in the transaction that changes the user, so the
+     * record commits or rolls back with the change.
+     */
+    public void invalidate(Long userId) {
+        jdbcTemplate.update("INSERT INTO " + TABLE + " (user_id, invalidated_at) VALUES (?, UTC_TIMESTAMP(6)) " +
+                "ON DUPLICATE KEY UPDATE invalidated_at = UTC_TIMESTAMP(6)", userId);
+        // Takes effect here at once; a rollback only costs the user's requests a database lookup for a while
+        remember(userId, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns true if the user changed at or after the time the token was issued.
+     */
+    public boolean isInvalidated(Long userId, Long issuedAtMillis) {
+        Long invalidatedAt = invalidatedAtMillis.get(userId);
+        return invalidatedAt != null && (issuedAtMillis == null || issuedAtMillis <= invalidatedAt);
+    }
+
+    @Scheduled(initialDelayString = "${app.jwt.invalidationPollMillis:1000}",
+               fixedDelayString = "${app.jwt.invalidationPollMillis:1000}")
+    public void poll() {
+        if (!embedClaims) {
+            return;
+        }
+        try {
+            LocalDateTime now = jdbcTemplate.queryForObject("SELECT UTC_TIMESTAMP(6)", LocalDateTime.class);
+            LocalDateTime since = polledAt != null
+                    ? polledAt.minus(LATE_COMMIT_MILLIS, ChronoUnit.MILLIS)
+                    : now.minus(jwtExpirationInMs, ChronoUnit.MILLIS);
+            jdbcTemplate.query("SELECT user_id, invalidated_at FROM " + TABLE + " WHERE invalidated_at >= ?",
+                    row -> { remember(row.getLong(1), row.getObject(2, LocalDateTime.class).toInstant(ZoneOffset.UTC).toEpochMilli()); },
+                    since);
+            polledAt = now;
+
+            long expired = System.currentTimeMillis() - jwtExpirationInMs;
+            invalidatedAtMillis.values().removeIf(at -> at < expired);
+        } catch (RuntimeException e) {
+            // Keep the task scheduled; the next poll reads everything since the last one that succeeded
+            logger.warn("Cannot read principal invalidations", e);
+        }
+    }
+
+    @Scheduled(fixedDelay = 10, timeUnit = TimeUnit.MINUTES)
+    public void prune() {
+        try {
+            jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE invalidated_at < TIMESTAMPADD(MICROSECOND, ?, UTC_TIMESTAMP(6))",
+                    -TimeUnit.MILLISECONDS.toMicros(jwtExpirationInMs));
+        } catch (RuntimeException e) {
+            logger.warn("Cannot prune principal invalidations", e);
+        }
+    }
+
+    private void remember(Long userId, long atMillis) {
+        invalidatedAtMillis.merge(userId, atMillis, Math::max);
+    }
+}
@@ -1,6 +1,8 @@
 package com.hospital.hms.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -9,10 +11,10 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -28,6 +30,27 @@ public class WebSecurityConfig {
     @Autowired
     private AuthEntryPointJwt unauthorizedHandler;
 
+    // Fixed BCrypt strength; 0 calibrates at startup against the target below
+    @Value("${app.security.bcrypt.strength:0}")
+    private int bcryptStrength;
+
+    @Value("${app.security.bcrypt.targetMillis:100}")
+    private long bcryptTargetMillis;
+
+    // Hashing threads; 0 uses one per available processor
+    @Value("${app.security.hashing.threads:0}")
+    private int hashingThreads;
+
+    @Value("${app.security.hashing.queueCapacity:64}")
+    private int hashingQueueCapacity;
+
+    @Value("${app.security.hashing.timeoutMillis:5000}")
+    private long hashingTimeoutMillis;
+
+    // -1 when actuator shares the API's port
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
         return new AuthTokenFilter();
@@ -38,6 +61,8 @@ public class WebSecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Rehash on login when a stored hash is weaker than the current strength
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -47,8 +72,10 @@ public class WebSecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public OffloadingPasswordEncoder passwordEncoder() {
+        int strength = bcryptStrength > 0 ? bcryptStrength : OffloadingPasswordEncoder.calibrateStrength(bcryptTargetMillis);
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        return new OffloadingPasswordEncoder(strength, threads, hashingQueueCapacity, hashingTimeoutMillis);
     }
 
     @Bean
@@ -71,8 +98,15 @@ public class WebSecurityConfig {
             .exceptionHandling(exception -> exception.authenticationEntryPoint(unauthorizedHandler))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth ->
-                auth.requestMatchers("/api/auth/**").permitAll()
+                // Async dispatches of streamed responses were already authorized on the original request
+                auth.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                    .requestMatchers("/api/auth/**").permitAll()
                     .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
+                    .requestMatchers("/actuator/health").permitAll()
+                    // Scrapes need no token, but only on the separate management port, never on the API's port
+                    .requestMatchers(new AndRequestMatcher(new AntPathRequestMatcher("/actuator/prometheus"),
+                            request -> managementPort > 0 && request.getLocalPort() == managementPort)).permitAll()
+                    .requestMatchers("/actuator/**").hasRole("ADMIN")
                     .requestMatchers("/api/admin/**").hasRole("ADMIN")
                     .requestMatchers("/api/doctor/**").hasRole("DOCTOR")
                     .requestMatchers("/api/patient/**").hasRole("PATIENT")
@@ -0,0 +1,46 @@
+package com.hospital.hms.service;
+
+import com.hospital.hms.entity.AppointmentStatus;
+import com.hospital.hms.repository.AppointmentRepository;
+import com.hospital.hms.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Booking conflict checks, made against the database so every instance sees the same schedule.
+ * Callers lock the doctors first and then check and write in the same transaction: the doctors'
+ * user rows stay locked until it commits, so bookings for one doctor are checked one after the
+ * other whichever instance handles them.
+ */
+@Component
+public class AppointmentConflicts {
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    public void lockDoctors(Collection<Long> doctorIds) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Doctors can only be locked inside a transaction");
+        }
+        if (!doctorIds.isEmpty()) {
+            userRepository.lockByIds(doctorIds);
+        }
+    }
+
+    /**
+     * Returns true if the doctor has another active appointment within the conflict window of the given time.
+     */
+    public boolean hasConflict(Long doctorId, LocalDateTime dateTime, Long excludeAppointmentId) {
+        return appointmentRepository.countBookingsBetween(doctorId,
+                dateTime.minusMinutes(AppointmentScheduleIndex.CONFLICT_WINDOW_MINUTES),
+                dateTime.plusMinutes(AppointmentScheduleIndex.CONFLICT_WINDOW_MINUTES),
+                AppointmentStatus.CANCELLED, excludeAppointmentId) > 0;
+    }
+}
@@ -0,0 +1,98 @@
+package com.hospital.hms.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves appointments that are still SCHEDULED or CONFIRMED long after their start time to
+ * NO_SHOW, so they stop showing up as upcoming. Each run works in batches of a bounded size and
+ * stops after a bounded number of batches; a backlog is worked off over the following runs.
+ * Only the instance holding the database lease sweeps.
+ */
+@Component
+@ConditionalOnProperty(name = "app.lifecycle.enabled", havingValue = "true", matchIfMissing = true)
+public class AppointmentLifecycleScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentLifecycleScheduler.class);
+
+    static final String NO_SHOW_LEASE = "appointment-no-show-sweep";
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private SchedulerLeases leases;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.lifecycle.noShowGraceMinutes:120}")
+    private long noShowGraceMinutes;
+
+    @Value("${app.lifecycle.batchSize:500}")
+    private int batchSize;
+
+    @Value("${app.lifecycle.maxBatchesPerRun:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${app.lifecycle.leaseSeconds:300}")
+    private long leaseSeconds;
+
+    private Counter noShowRows;
+    private DistributionSummary rowsPerRun;
+    private Timer runTimer;
+
+    @PostConstruct
+    public void init() {
+        noShowRows = Counter.builder("hms.lifecycle.rows").tag("transition", "no_show")
+                .description("Appointments moved by the lifecycle scheduler").register(meterRegistry);
+        rowsPerRun = DistributionSummary.builder("hms.lifecycle.run.rows").tag("transition", "no_show")
+                .description("Appointments moved per lifecycle run").register(meterRegistry);
+        runTimer = Timer.builder("hms.lifecycle.run").tag("transition", "no_show")
+                .description("Time taken by a lifecycle run that held the lease").register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.lifecycle.initialDelayMillis:60000}",
+               fixedDelayString = "${app.lifecycle.intervalMillis:300000}")
+    public void sweepNoShows() {
+        Duration lease = Duration.ofSeconds(leaseSeconds);
+        if (!leases.tryAcquire(NO_SHOW_LEASE, lease)) {
+            return;
+        }
+        long start = System.nanoTime();
+        int total = 0;
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusMinutes(noShowGraceMinutes);
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                int changed = appointmentService.markNoShows(cutoff, batchSize);
+                total += changed;
+                noShowRows.increment(changed);
+                // Renewing between batches keeps a long run from outliving its lease
+                if (changed < batchSize || !leases.tryAcquire(NO_SHOW_LEASE, lease)) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("No-show sweep failed after {} appointments", total, e);
+        } finally {
+            rowsPerRun.record(total);
+            runTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (total > 0) {
+            logger.info("Marked {} overdue appointments as NO_SHOW", total);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.hospital.hms.service;
+
+import com.hospital.hms.entity.Appointment;
+import com.hospital.hms.entity.AppointmentStatus;
+import com.hospital.hms.event.AppointmentChangedEvent;
+import com.hospital.hms.event.ChangeType;
+import com.hospital.hms.event.SharedAppointmentChanges;
+import com.hospital.hms.event.SharedUserChanges;
+import com.hospital.hms.event.UserChangedEvent;
+import com.hospital.hms.repository.AppointmentRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory, per-doctor index of booked appointment times, used to list availability.
+ * Cancelled appointments are not indexed since they no longer occupy the doctor's time, and
+ * appointments that started more than a day ago are dropped every app.availability.pruneIntervalMillis.
+ * Changes made through other instances, and by the archive job on whichever instance runs it, arrive
+ * through {@link SharedAppointmentChanges} and {@link SharedUserChanges} within app.events.pollMillis,
+ * so the index can lag the database and is never used to accept a booking: {@link AppointmentConflicts}
+ * checks those against the database.
+ * <p>
+ * Availability is served from one bitmap per doctor and day, bit i standing for the slot that
+ * starts i * {@link #SLOT_MINUTES} after the configured day start. A bitmap is computed from the
+ * doctor's schedule on first use and dropped again whenever a booking near that day changes. Only
+ * days from today to app.availability.cacheDays ahead are kept, so a doctor holds at most that many
+ * bitmaps however far ahead clients look; other days are computed on every request.
+ */
+@Component
+public class AppointmentScheduleIndex {
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentScheduleIndex.class);
+
+    public static final long CONFLICT_WINDOW_MINUTES = 30;
+    public static final long SLOT_MINUTES = 30;
+
+    private static final Comparator<ScheduledSlot> SLOT_ORDER =
+            Comparator.comparing(ScheduledSlot::start).thenComparing(ScheduledSlot::appointmentId);
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    private final Map<Long, NavigableSet<ScheduledSlot>> schedulesByDoctor = new ConcurrentHashMap<>();
+    private final Map<Long, ScheduledSlot> slotsById = new ConcurrentHashMap<>();
+
+    private final Map<Long, Map<LocalDate, Long>> blockedSlotsByDoctor = new ConcurrentHashMap<>();
+
+    @Value("${app.availability.dayStart:09:00}")
+    private String dayStart;
+
+    @Value("${app.availability.dayEnd:17:00}")
+    private String dayEnd;
+
+    @Value("${app.availability.cacheDays:90}")
+    private int cacheDays;
+
+    private LocalTime firstSlot;
+    private int slotsPerDay;
+
+    public record ScheduledSlot(Long appointmentId, Long doctorId, Long patientId, LocalDateTime start) {}
+
+    @PostConstruct
+    public void rebuild() {
+        firstSlot = LocalTime.parse(dayStart);
+        slotsPerDay = (int) (Duration.between(firstSlot, LocalTime.parse(dayEnd)).toMinutes() / SLOT_MINUTES);
+        if (slotsPerDay < 1 || slotsPerDay > Long.SIZE) {
+            throw new IllegalStateException("Availability day must hold between 1 and 64 slots of " + SLOT_MINUTES + " minutes");
+        }
+
+        LocalDateTime from = pruneBefore();
+        schedulesByDoctor.clear();
+        slotsById.clear();
+        blockedSlotsByDoctor.clear();
+
+        List<Object[]> rows = appointmentRepository.findScheduleEntriesFrom(from, AppointmentStatus.CANCELLED);
+        for (Object[] row : rows) {
+            put(new ScheduledSlot((Long) row[0], (Long) row[1], (Long) row[2], (LocalDateTime) row[3]));
+        }
+        logger.info("Appointment schedule index built with {} entries for {} doctors", slotsById.size(), schedulesByDoctor.size());
+    }
+
+    /**
+     * Drops appointments that started more than a day ago and the cached bitmaps of past days.
+     */
+    @Scheduled(fixedDelayString = "${app.availability.pruneIntervalMillis:3600000}",
+            initialDelayString = "${app.availability.pruneIntervalMillis:3600000}")
+    public void prune() {
+        ScheduledSlot horizon = new ScheduledSlot(Long.MIN_VALUE, null, null, pruneBefore());
+        int pruned = 0;
+        for (NavigableSet<ScheduledSlot> schedule : schedulesByDoctor.values()) {
+            synchronized (schedule) {
+                NavigableSet<ScheduledSlot> past = schedule.headSet(horizon, false);
+                for (ScheduledSlot slot : past) {
+                    slotsById.remove(slot.appointmentId(), slot);
+                }
+                pruned += past.size();
+                past.clear();
+            }
+        }
+        LocalDate today = LocalDate.now();
+        blockedSlotsByDoctor.values().forEach(days -> days.keySet().removeIf(day -> day.isBefore(today)));
+        if (pruned > 0) {
+            logger.debug("Pruned {} past appointments from the schedule index", pruned);
+        }
+    }
+
+    private static LocalDateTime pruneBefore() {
+        return LocalDateTime.now().minusDays(1);
+    }
+
+    public int getSlotsPerDay() {
+        return slotsPerDay;
+    }
+
+    public LocalDateTime slotStart(LocalDate day, int slot) {
+        return day.atTime(firstSlot).plusMinutes(slot * SLOT_MINUTES);
+    }
+
+    /**
+     * Returns a bitmap of the doctor's slots on the given day that a booking could take without
+     * a conflict. Slots that have already started are not removed.
+     */
+    public long freeSlots(Long doctorId, LocalDate day) {
+        long allSlots = slotsPerDay == Long.SIZE ? -1L : (1L << slotsPerDay) - 1;
+        NavigableSet<ScheduledSlot> schedule = schedulesByDoctor.get(doctorId);
+        if (schedule == null) {
+            return allSlots;
+        }
+        synchronized (schedule) {
+            LocalDate today = LocalDate.now();
+            if (day.isBefore(today) || day.isAfter(today.plusDays(cacheDays))) {
+                return allSlots & ~blockedSlots(schedule, doctorId, day);
+            }
+            Map<LocalDate, Long> days = blockedSlotsByDoctor.computeIfAbsent(doctorId, id -> new ConcurrentHashMap<>());
+            Long blocked = days.get(day);
+            if (blocked == null) {
+                blocked = blockedSlots(schedule, doctorId, day);
+                days.keySet().removeIf(cached -> cached.isBefore(today));
+                days.put(day, blocked);
+            }
+            return allSlots & ~blocked;
+        }
+    }
+
+    // Sets bit i when slot i lies within the conflict window of a booked appointment
+    private long blockedSlots(NavigableSet<ScheduledSlot> schedule, Long doctorId, LocalDate day) {
+        LocalDateTime first = day.atTime(firstSlot);
+        long window = CONFLICT_WINDOW_MINUTES * 60;
+        long slotLength = SLOT_MINUTES * 60;
+
+        long blocked = 0;
+        for (ScheduledSlot slot : schedule.subSet(
+                new ScheduledSlot(Long.MIN_VALUE, doctorId, null, first.minusSeconds(window)), true,
+                new ScheduledSlot(Long.MAX_VALUE, doctorId, null, first.plusSeconds((slotsPerDay - 1) * slotLength + window)), true)) {
+            long offset = Duration.between(first, slot.start()).getSeconds();
+            long lowest = Math.max(0, -Math.floorDiv(window - offset, slotLength));
+            long highest = Math.min(slotsPerDay - 1, Math.floorDiv(offset + window, slotLength));
+            for (long i = lowest; i <= highest; i++) {
+                blocked |= 1L << i;
+            }
+        }
+        return blocked;
+    }
+
+    /**
+     * Records the current state of a persisted appointment, moving or dropping its entry as needed.
+     */
+    public void update(Appointment appointment) {
+        update(appointment.getId(), appointment.getDoctor().getId(), appointment.getPatient().getId(),
+                appointment.getAppointmentDateTime(), appointment.getStatus());
+    }
+
+    public void update(Long appointmentId, Long doctorId, Long patientId, LocalDateTime start, AppointmentStatus status) {
+        if (status == AppointmentStatus.CANCELLED) {
+            remove(appointmentId);
+            return;
+        }
+        put(new ScheduledSlot(appointmentId, doctorId, patientId, start));
+    }
+
+    // Replays changes in feed order; the ones this instance made were applied already and apply again harmlessly
+    @EventListener
+    public void onSharedAppointmentChanges(SharedAppointmentChanges shared) {
+        for (AppointmentChangedEvent change : shared.changes()) {
+            if (change.type() == ChangeType.DELETED || change.type() == ChangeType.ARCHIVED) {
+                remove(change.appointmentId());
+            } else {
+                update(change.appointmentId(), change.doctorId(), change.patientId(), change.appointmentDateTime(), change.status());
+            }
+        }
+    }
+
+    // A deleted user's appointments went with it through cascading
+    @EventListener
+    public void onSharedUserChanges(SharedUserChanges shared) {
+        for (UserChangedEvent change : shared.changes()) {
+            if (change.type() == ChangeType.DELETED) {
+                removeUser(change.userId());
+            }
+        }
+    }
+
+    public void remove(Long appointmentId) {
+        ScheduledSlot previous = slotsById.remove(appointmentId);
+        if (previous != null) {
+            NavigableSet<ScheduledSlot> schedule = schedulesByDoctor.get(previous.doctorId());
+            if (schedule != null) {
+                synchronized (schedule) {
+                    schedule.remove(previous);
+                    invalidateDays(previous);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops every entry the user takes part in, either as doctor or as patient.
+     */
+    public void removeUser(Long userId) {
+        NavigableSet<ScheduledSlot> schedule = schedulesByDoctor.remove(userId);
+        blockedSlotsByDoctor.remove(userId);
+        if (schedule != null) {
+            synchronized (schedule) {
+                schedule.forEach(slot -> slotsById.remove(slot.appointmentId()));
+            }
+        }
+        slotsById.values().stream()
+                .filter(slot -> userId.equals(slot.patientId()))
+                .map(ScheduledSlot::appointmentId)
+                .toList()
+                .forEach(this::remove);
+    }
+
+    private void put(ScheduledSlot slot) {
+        remove(slot.appointmentId());
+        NavigableSet<ScheduledSlot> schedule =
+                schedulesByDoctor.computeIfAbsent(slot.doctorId(), id -> new TreeSet<>(SLOT_ORDER));
+        synchronized (schedule) {
+            schedule.add(slot);
+            invalidateDays(slot);
+        }
+        slotsById.put(slot.appointmentId(), slot);
+    }
+
+    // A booking blocks slots up to one conflict window away, which can reach into the neighbouring days
+    private void invalidateDays(ScheduledSlot slot) {
+        Map<LocalDate, Long> days = blockedSlotsByDoctor.get(slot.doctorId());
+        if (days != null) {
+            LocalDate day = slot.start().toLocalDate();
+            days.remove(day.minusDays(1));
+            days.remove(day);
+            days.remove(day.plusDays(1));
+        }
+    }
+}
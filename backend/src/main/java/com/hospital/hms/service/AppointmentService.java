@@ -1,112 +1,353 @@
 package com.hospital.hms.service;
 
+import com.hospital.hms.config.ReplicaRead;
+import com.hospital.hms.dto.AppointmentView;
+import com.hospital.hms.dto.BulkAppointmentRequest;
+import com.hospital.hms.dto.CursorPage;
+import com.hospital.hms.dto.PageCursor;
 import com.hospital.hms.entity.Appointment;
 import com.hospital.hms.entity.AppointmentStatus;
 import com.hospital.hms.entity.User;
+import com.hospital.hms.event.AppointmentChangeBatch;
+import com.hospital.hms.event.AppointmentChangedEvent;
+import com.hospital.hms.event.ChangeType;
 import com.hospital.hms.repository.AppointmentRepository;
+import com.hospital.hms.repository.ArchivedAppointmentRepository;
 import com.hospital.hms.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed("hms.service")
 public class AppointmentService {
+
+    // Statuses a bulk transition may move appointments out of, by target status. Moving appointments
+    // back to SCHEDULED would need a conflict check per row, so it is only possible one at a time.
+    private static final Map<AppointmentStatus, Set<AppointmentStatus>> BULK_TRANSITION_SOURCES = Map.of(
+            AppointmentStatus.CONFIRMED, EnumSet.of(AppointmentStatus.SCHEDULED),
+            AppointmentStatus.COMPLETED, EnumSet.of(AppointmentStatus.SCHEDULED, AppointmentStatus.CONFIRMED),
+            AppointmentStatus.NO_SHOW, EnumSet.of(AppointmentStatus.SCHEDULED, AppointmentStatus.CONFIRMED),
+            AppointmentStatus.CANCELLED, EnumSet.of(AppointmentStatus.SCHEDULED, AppointmentStatus.CONFIRMED));
     
     @Autowired
     private AppointmentRepository appointmentRepository;
     
+    @Autowired
+    private ArchivedAppointmentRepository archivedAppointmentRepository;
+
     @Autowired
     private UserRepository userRepository;
 
-    public List<Appointment> getAllAppointments() {
-        return appointmentRepository.findAll();
+    @Autowired
+    private AppointmentScheduleIndex scheduleIndex;
+
+    @Autowired
+    private AppointmentConflicts conflicts;
+
+    @Autowired
+    private BatchWriter batchWriter;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<AppointmentView> getAllAppointments() {
+        return appointmentRepository.findAllViews();
+    }
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<AppointmentView> getRecentAppointments(int limit) {
+        return appointmentRepository.findRecentViews(PageRequest.of(0, limit));
     }
 
     public Optional<Appointment> getAppointmentById(Long id) {
         return appointmentRepository.findById(id);
     }
 
-    public List<Appointment> getAppointmentsByPatientId(Long patientId) {
-        return appointmentRepository.findByPatientIdOrderByAppointmentDateTimeDesc(patientId);
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<AppointmentView> getAppointmentsByPatientId(Long patientId) {
+        return appointmentRepository.findViewsByPatientId(patientId);
     }
 
-    public List<Appointment> getAppointmentsByDoctorId(Long doctorId) {
-        return appointmentRepository.findByDoctorIdOrderByAppointmentDateTimeDesc(doctorId);
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<AppointmentView> getAppointmentsByDoctorId(Long doctorId) {
+        return appointmentRepository.findViewsByDoctorId(doctorId);
     }
 
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public CursorPage<AppointmentView> getAppointmentsPage(String cursor, Integer size) {
+        PageCursor position = PageCursor.decode(cursor, PageCursor.Order.TIMESTAMP);
+        int limit = CursorPage.clampSize(size);
+        return toPage(appointmentRepository.findPageBefore(
+                position.at(), position.id(), PageRequest.of(0, limit + 1)), limit);
+    }
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public CursorPage<AppointmentView> getAppointmentsPageByPatientId(Long patientId, String cursor, Integer size) {
+        PageCursor position = PageCursor.decode(cursor, PageCursor.Order.TIMESTAMP);
+        int limit = CursorPage.clampSize(size);
+        return toPage(appointmentRepository.findPageByPatientIdBefore(
+                patientId, position.at(), position.id(), PageRequest.of(0, limit + 1)), limit);
+    }
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public CursorPage<AppointmentView> getAppointmentsPageByDoctorId(Long doctorId, String cursor, Integer size) {
+        PageCursor position = PageCursor.decode(cursor, PageCursor.Order.TIMESTAMP);
+        int limit = CursorPage.clampSize(size);
+        return toPage(appointmentRepository.findPageByDoctorIdBefore(
+                doctorId, position.at(), position.id(), PageRequest.of(0, limit + 1)), limit);
+    }
+
+    // Archived history is only read when asked for, so the current lists never touch the archive table
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public CursorPage<AppointmentView> getArchivedAppointmentsPageByPatientId(Long patientId, String cursor, Integer size) {
+        PageCursor position = PageCursor.decode(cursor, PageCursor.Order.TIMESTAMP);
+        int limit = CursorPage.clampSize(size);
+        return toPage(archivedAppointmentRepository.findPageByPatientIdBefore(
+                patientId, position.at(), position.id(), PageRequest.of(0, limit + 1)), limit);
+    }
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public CursorPage<AppointmentView> getArchivedAppointmentsPageByDoctorId(Long doctorId, String cursor, Integer size) {
+        PageCursor position = PageCursor.decode(cursor, PageCursor.Order.TIMESTAMP);
+        int limit = CursorPage.clampSize(size);
+        return toPage(archivedAppointmentRepository.findPageByDoctorIdBefore(
+                doctorId, position.at(), position.id(), PageRequest.of(0, limit + 1)), limit);
+    }
+
+    private CursorPage<AppointmentView> toPage(List<AppointmentView> rows, int limit) {
+        return CursorPage.of(rows, limit, a -> PageCursor.byTimestamp(a.appointmentDateTime(), a.id()));
+    }
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
     public List<Appointment> getAppointmentsByStatus(AppointmentStatus status) {
         return appointmentRepository.findByStatus(status);
     }
 
     public Appointment createAppointment(Long patientId, Long doctorId, LocalDateTime appointmentDateTime, String reason) {
-        User patient = userRepository.findById(patientId)
-                .orElseThrow(() -> new RuntimeException("Patient not found with id: " + patientId));
-        
-        User doctor = userRepository.findById(doctorId)
-                .orElseThrow(() -> new RuntimeException("Doctor not found with id: " + doctorId));
-
-        // Check if doctor is available at the requested time
-        List<Appointment> conflictingAppointments = appointmentRepository
-                .findByDoctorIdAndAppointmentDateTimeBetween(
-                    doctorId, 
-                    appointmentDateTime.minusMinutes(30), 
-                    appointmentDateTime.plusMinutes(30)
-                );
-        
-        if (!conflictingAppointments.isEmpty()) {
-            throw new RuntimeException("Doctor is not available at the requested time");
+        Appointment appointment = new TransactionTemplate(transactionManager).execute(tx -> {
+            User patient = userRepository.findById(patientId)
+                    .orElseThrow(() -> new RuntimeException("Patient not found with id: " + patientId));
+
+            conflicts.lockDoctors(List.of(doctorId));
+            User doctor = userRepository.findById(doctorId)
+                    .orElseThrow(() -> new RuntimeException("Doctor not found with id: " + doctorId));
+
+            // Check if doctor is available at the requested time
+            if (conflicts.hasConflict(doctorId, appointmentDateTime, null)) {
+                throw new RuntimeException("Doctor is not available at the requested time");
+            }
+            return appointmentRepository.save(new Appointment(patient, doctor, appointmentDateTime, reason));
+        });
+        scheduleIndex.update(appointment);
+        eventPublisher.publishEvent(AppointmentChangedEvent.of(ChangeType.CREATED, appointment, null));
+        return appointment;
+    }
+
+    /**
+     * Books every entry or none. Each entry is checked against the existing schedule and against
+     * the entries before it, and the rows are inserted in JDBC batches.
+     */
+    public List<Appointment> createAppointments(List<BulkAppointmentRequest.Entry> entries) {
+        List<Appointment> saved = new TransactionTemplate(transactionManager).execute(tx -> bookAll(entries));
+        saved.forEach(scheduleIndex::update);
+        eventPublisher.publishEvent(new AppointmentChangeBatch(saved.stream()
+                .map(appointment -> AppointmentChangedEvent.of(ChangeType.CREATED, appointment, null))
+                .toList()));
+        return saved;
+    }
+
+    private List<Appointment> bookAll(List<BulkAppointmentRequest.Entry> entries) {
+        conflicts.lockDoctors(entries.stream().map(BulkAppointmentRequest.Entry::getDoctorId).collect(Collectors.toSet()));
+        Map<Long, User> users = new HashMap<>();
+        userRepository.findAllById(entries.stream()
+                .flatMap(entry -> Stream.of(entry.getPatientId(), entry.getDoctorId()))
+                .collect(Collectors.toSet()))
+                .forEach(user -> users.put(user.getId(), user));
+
+        Map<Long, NavigableSet<LocalDateTime>> batchSchedules = new HashMap<>();
+        List<Appointment> appointments = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            BulkAppointmentRequest.Entry entry = entries.get(i);
+            User patient = users.get(entry.getPatientId());
+            if (patient == null) {
+                throw new IllegalArgumentException("Entry " + i + ": Patient not found with id: " + entry.getPatientId());
+            }
+            User doctor = users.get(entry.getDoctorId());
+            if (doctor == null) {
+                throw new IllegalArgumentException("Entry " + i + ": Doctor not found with id: " + entry.getDoctorId());
+            }
+
+            LocalDateTime dateTime = entry.getAppointmentDateTime();
+            NavigableSet<LocalDateTime> batchSchedule = batchSchedules.computeIfAbsent(doctor.getId(), id -> new TreeSet<>());
+            LocalDateTime nearestBefore = batchSchedule.floor(dateTime.plusMinutes(AppointmentScheduleIndex.CONFLICT_WINDOW_MINUTES));
+            if (conflicts.hasConflict(doctor.getId(), dateTime, null) || (nearestBefore != null
+                    && !nearestBefore.isBefore(dateTime.minusMinutes(AppointmentScheduleIndex.CONFLICT_WINDOW_MINUTES)))) {
+                throw new IllegalArgumentException("Entry " + i + ": Doctor is not available at the requested time");
+            }
+            batchSchedule.add(dateTime);
+
+            appointments.add(new Appointment(patient, doctor, dateTime, entry.getReason()));
         }
 
-        Appointment appointment = new Appointment(patient, doctor, appointmentDateTime, reason);
-        return appointmentRepository.save(appointment);
+        // Joins the transaction holding the doctor locks
+        return batchWriter.persistAll(appointments);
     }
 
-    public Appointment updateAppointmentStatus(Long id, AppointmentStatus status) {
-        Appointment appointment = appointmentRepository.findById(id)
+    /**
+     * Changes only the status column, guarded by the status read beforehand so a concurrent change
+     * is reported instead of overwritten.
+     */
+    public AppointmentView updateAppointmentStatus(Long id, AppointmentStatus status) {
+        AppointmentView current = appointmentRepository.findViewById(id)
                 .orElseThrow(() -> new RuntimeException("Appointment not found with id: " + id));
-        
-        appointment.setStatus(status);
-        return appointmentRepository.save(appointment);
+
+        if (appointmentRepository.updateStatus(id, current.status(), status, LocalDateTime.now()) == 0) {
+            throw new RuntimeException("Appointment " + id + " was changed by someone else, please reload it");
+        }
+        AppointmentView updated = current.withStatus(status);
+        scheduleIndex.update(id, updated.doctor().id(), updated.patient().id(), updated.appointmentDateTime(), status);
+        eventPublisher.publishEvent(AppointmentChangedEvent.of(ChangeType.UPDATED, updated, current.status()));
+        return updated;
     }
 
-    public Appointment updateAppointmentNotes(Long id, String notes) {
-        Appointment appointment = appointmentRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Appointment not found with id: " + id));
-        
-        appointment.setNotes(notes);
-        return appointmentRepository.save(appointment);
+    /**
+     * Changes only the notes column. The row is read back in the same transaction because the
+     * change event needs its doctor, patient and status and the caller gets the whole appointment;
+     * the UPDATE's row lock keeps other writers out until then, so the view is the row as this
+     * statement left it.
+     */
+    public AppointmentView updateAppointmentNotes(Long id, String notes) {
+        AppointmentView updated = new TransactionTemplate(transactionManager).execute(tx -> {
+            if (appointmentRepository.updateNotes(id, notes, LocalDateTime.now()) == 0) {
+                throw new RuntimeException("Appointment not found with id: " + id);
+            }
+            return appointmentRepository.findViewById(id)
+                    .orElseThrow(() -> new RuntimeException("Appointment not found with id: " + id));
+        });
+        eventPublisher.publishEvent(AppointmentChangedEvent.of(ChangeType.UPDATED, updated, updated.status()));
+        return updated;
     }
 
-    public Appointment rescheduleAppointment(Long id, LocalDateTime newDateTime) {
-        Appointment appointment = appointmentRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Appointment not found with id: " + id));
+    /**
+     * Moves every matching appointment whose status allows it to the target status with one
+     * UPDATE statement. The rows are either the given ids or the doctor's appointments on the
+     * given day. Returns the ids that changed; the others are left as they were.
+     */
+    public List<Long> transitionAppointments(AppointmentStatus status, List<Long> ids, Long doctorId, LocalDate date) {
+        Set<AppointmentStatus> fromStatuses = BULK_TRANSITION_SOURCES.get(status);
+        if (fromStatuses == null) {
+            throw new IllegalArgumentException("Appointments cannot be moved to " + status + " in bulk");
+        }
+
+        return applyTransition(status, () -> ids != null
+                ? appointmentRepository.lockTransitionCandidatesByIds(ids, fromStatuses)
+                : appointmentRepository.lockTransitionCandidatesByDoctor(doctorId, date.atStartOfDay(),
+                        date.plusDays(1).atStartOfDay(), fromStatuses));
+    }
+
+    /**
+     * Marks up to limit SCHEDULED or CONFIRMED appointments that started before the cutoff as
+     * NO_SHOW, oldest first. Returns the number changed.
+     */
+    public int markNoShows(LocalDateTime cutoff, int limit) {
+        return applyTransition(AppointmentStatus.NO_SHOW, () -> appointmentRepository.lockOverdue(
+                BULK_TRANSITION_SOURCES.get(AppointmentStatus.NO_SHOW), cutoff, PageRequest.of(0, limit))).size();
+    }
 
-        // Check if doctor is available at the new time
-        List<Appointment> conflictingAppointments = appointmentRepository
-                .findByDoctorIdAndAppointmentDateTimeBetween(
-                    appointment.getDoctor().getId(), 
-                    newDateTime.minusMinutes(30), 
-                    newDateTime.plusMinutes(30)
-                );
-        
-        // Remove current appointment from conflict check
-        conflictingAppointments.removeIf(a -> a.getId().equals(id));
-        
-        if (!conflictingAppointments.isEmpty()) {
-            throw new RuntimeException("Doctor is not available at the requested time");
+    // Locks the candidate rows, changes them with one UPDATE and, once committed, publishes them as one batch
+    private List<Long> applyTransition(AppointmentStatus status, Supplier<List<Object[]>> lockCandidates) {
+        List<Object[]> changed = new TransactionTemplate(transactionManager).execute(tx -> {
+            List<Object[]> rows = lockCandidates.get();
+            if (!rows.isEmpty()) {
+                appointmentRepository.updateStatusByIds(rows.stream().map(row -> (Long) row[0]).toList(),
+                        status, LocalDateTime.now());
+            }
+            return rows;
+        });
+
+        List<Long> changedIds = new ArrayList<>(changed.size());
+        List<AppointmentChangedEvent> changes = new ArrayList<>(changed.size());
+        for (Object[] row : changed) {
+            Long id = (Long) row[0];
+            Long doctorId = (Long) row[1];
+            Long patientId = (Long) row[2];
+            LocalDateTime dateTime = (LocalDateTime) row[3];
+            scheduleIndex.update(id, doctorId, patientId, dateTime, status);
+            changes.add(new AppointmentChangedEvent(ChangeType.UPDATED, id, doctorId, patientId,
+                    dateTime, (AppointmentStatus) row[4], status));
+            changedIds.add(id);
+        }
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new AppointmentChangeBatch(changes));
         }
+        return changedIds;
+    }
 
-        appointment.setAppointmentDateTime(newDateTime);
-        appointment.setStatus(AppointmentStatus.SCHEDULED);
-        return appointmentRepository.save(appointment);
+    public Appointment rescheduleAppointment(Long id, LocalDateTime newDateTime) {
+        Rescheduled rescheduled = new TransactionTemplate(transactionManager).execute(tx -> {
+            Appointment appointment = appointmentRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Appointment not found with id: " + id));
+
+            // Check if doctor is available at the new time, ignoring the appointment being moved
+            conflicts.lockDoctors(List.of(appointment.getDoctor().getId()));
+            if (conflicts.hasConflict(appointment.getDoctor().getId(), newDateTime, id)) {
+                throw new RuntimeException("Doctor is not available at the requested time");
+            }
+
+            AppointmentStatus previousStatus = appointment.getStatus();
+            appointment.setAppointmentDateTime(newDateTime);
+            appointment.setStatus(AppointmentStatus.SCHEDULED);
+            return new Rescheduled(appointmentRepository.save(appointment), previousStatus);
+        });
+        scheduleIndex.update(rescheduled.appointment());
+        eventPublisher.publishEvent(AppointmentChangedEvent.of(ChangeType.UPDATED, rescheduled.appointment(),
+                rescheduled.previousStatus()));
+        return rescheduled.appointment();
     }
 
+    private record Rescheduled(Appointment appointment, AppointmentStatus previousStatus) {}
+
     public void deleteAppointment(Long id) {
         Appointment appointment = appointmentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Appointment not found with id: " + id));
         appointmentRepository.delete(appointment);
+        scheduleIndex.remove(id);
+        eventPublisher.publishEvent(AppointmentChangedEvent.of(ChangeType.DELETED, appointment, appointment.getStatus()));
     }
 }
\ No newline at end of file
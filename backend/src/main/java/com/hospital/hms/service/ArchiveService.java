@@ -0,0 +1,209 @@
+package com.hospital.hms.service;
+
+import com.hospital.hms.entity.AppointmentStatus;
+import com.hospital.hms.event.AppointmentChangeBatch;
+import com.hospital.hms.event.AppointmentChangedEvent;
+import com.hospital.hms.event.ChangeType;
+import com.hospital.hms.event.PrescriptionChangeBatch;
+import com.hospital.hms.event.PrescriptionChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * Moves closed appointments and finished prescriptions older than the retention window from the
+ * hot tables to their archive tables, so per-user queries and their indexes only cover recent
+ * rows. Each batch copies and deletes a few hundred rows in one short transaction, and batches
+ * are spaced out so the archiver never competes with requests for long. Only the instance holding
+ * the database lease archives.
+ */
+@Component
+@ConditionalOnProperty(name = "app.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class ArchiveService {
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveService.class);
+
+    static final String ARCHIVE_LEASE = "archive";
+
+    private static final List<String> CLOSED_STATUSES = List.of(AppointmentStatus.COMPLETED.name(),
+            AppointmentStatus.CANCELLED.name(), AppointmentStatus.NO_SHOW.name());
+
+    private static final String APPOINTMENT_COLUMNS =
+            "id, patient_id, doctor_id, appointment_datetime, status, reason, notes, created_at, updated_at";
+    private static final String PRESCRIPTION_COLUMNS =
+            "id, patient_id, doctor_id, medicine_name, dosage, instructions, duration, prescribed_date, created_at, updated_at";
+
+    // Oldest first; the first condition ranges over idx_appointments_status_datetime
+    private static final String LOCK_CLOSED_APPOINTMENTS =
+            "SELECT id, doctor_id, patient_id, appointment_datetime, status FROM appointments " +
+            "WHERE status IN (:statuses) AND appointment_datetime < :cutoff " +
+            "ORDER BY appointment_datetime, id LIMIT :limit FOR UPDATE";
+
+    // A course that ended before the cutoff also started before it, so the first condition can use
+    // idx_prescriptions_prescribed_date
+    private static final String LOCK_FINISHED_PRESCRIPTIONS =
+            "SELECT id, doctor_id, patient_id, medicine_name, dosage FROM prescriptions " +
+            "WHERE prescribed_date < :cutoff AND DATE_ADD(prescribed_date, INTERVAL COALESCE(duration, 0) DAY) < :cutoff " +
+            "ORDER BY prescribed_date, id LIMIT :limit FOR UPDATE";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SchedulerLeases leases;
+
+    @Autowired
+    private AppointmentScheduleIndex scheduleIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.archive.appointmentRetentionDays:365}")
+    private long appointmentRetentionDays;
+
+    @Value("${app.archive.prescriptionRetentionDays:365}")
+    private long prescriptionRetentionDays;
+
+    @Value("${app.archive.batchSize:200}")
+    private int batchSize;
+
+    @Value("${app.archive.maxBatchesPerRun:500}")
+    private int maxBatchesPerRun;
+
+    @Value("${app.archive.pauseMillis:200}")
+    private long pauseMillis;
+
+    @Value("${app.archive.leaseSeconds:300}")
+    private long leaseSeconds;
+
+    private Counter archivedAppointments;
+    private Counter archivedPrescriptions;
+
+    @PostConstruct
+    public void init() {
+        archivedAppointments = Counter.builder("hms.archive.rows").tag("table", "appointments")
+                .description("Rows moved to the archive tables").register(meterRegistry);
+        archivedPrescriptions = Counter.builder("hms.archive.rows").tag("table", "prescriptions")
+                .description("Rows moved to the archive tables").register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.archive.cron:0 30 3 * * *}")
+    public void archive() {
+        Duration lease = Duration.ofSeconds(leaseSeconds);
+        if (!leases.tryAcquire(ARCHIVE_LEASE, lease)) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int appointments = run(lease, () -> archiveAppointments(now.minusDays(appointmentRetentionDays)));
+            int prescriptions = run(lease, () -> archivePrescriptions(now.minusDays(prescriptionRetentionDays)));
+            if (appointments > 0 || prescriptions > 0) {
+                logger.info("Archived {} appointments and {} prescriptions", appointments, prescriptions);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.error("Archiving failed", e);
+        }
+    }
+
+    // Runs batches until one comes back short, the batch limit is reached or the lease is lost
+    private int run(Duration lease, IntSupplier batch) throws InterruptedException {
+        int total = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            int moved = batch.getAsInt();
+            total += moved;
+            if (moved < batchSize || !leases.tryAcquire(ARCHIVE_LEASE, lease)) {
+                break;
+            }
+            Thread.sleep(pauseMillis);
+        }
+        return total;
+    }
+
+    private int archiveAppointments(LocalDateTime cutoff) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("statuses", CLOSED_STATUSES)
+                .addValue("cutoff", cutoff)
+                .addValue("limit", batchSize);
+        List<AppointmentChangedEvent> moved = moveBatch("appointments", APPOINTMENT_COLUMNS, LOCK_CLOSED_APPOINTMENTS, params,
+                (rs, row) -> new AppointmentChangedEvent(ChangeType.ARCHIVED,
+                        rs.getLong("id"),
+                        rs.getLong("doctor_id"),
+                        rs.getLong("patient_id"),
+                        rs.getObject("appointment_datetime", LocalDateTime.class),
+                        AppointmentStatus.valueOf(rs.getString("status")),
+                        AppointmentStatus.valueOf(rs.getString("status"))),
+                AppointmentChangedEvent::appointmentId);
+
+        // After commit, so listeners never see rows that could still roll back
+        moved.forEach(event -> scheduleIndex.remove(event.appointmentId()));
+        if (!moved.isEmpty()) {
+            eventPublisher.publishEvent(new AppointmentChangeBatch(moved));
+        }
+        archivedAppointments.increment(moved.size());
+        return moved.size();
+    }
+
+    private int archivePrescriptions(LocalDateTime cutoff) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("cutoff", cutoff)
+                .addValue("limit", batchSize);
+        List<PrescriptionChangedEvent> moved = moveBatch("prescriptions", PRESCRIPTION_COLUMNS, LOCK_FINISHED_PRESCRIPTIONS, params,
+                (rs, row) -> new PrescriptionChangedEvent(ChangeType.ARCHIVED,
+                        rs.getLong("id"),
+                        rs.getLong("doctor_id"),
+                        rs.getLong("patient_id"),
+                        rs.getString("medicine_name"),
+                        rs.getString("dosage")),
+                PrescriptionChangedEvent::prescriptionId);
+
+        if (!moved.isEmpty()) {
+            eventPublisher.publishEvent(new PrescriptionChangeBatch(moved));
+        }
+        archivedPrescriptions.increment(moved.size());
+        return moved.size();
+    }
+
+    // Locks a batch, copies it to <table>_archive and deletes it from the hot table in one transaction
+    private <E> List<E> moveBatch(String table, String columns, String lockQuery, MapSqlParameterSource params,
+                                  RowMapper<E> toEvent, Function<E, Long> idOf) {
+        return new TransactionTemplate(transactionManager).execute(tx -> {
+            List<E> rows = jdbcTemplate.query(lockQuery, params, toEvent);
+            if (rows.isEmpty()) {
+                return rows;
+            }
+            MapSqlParameterSource batch = new MapSqlParameterSource()
+                    .addValue("ids", rows.stream().map(idOf).toList())
+                    .addValue("archivedAt", LocalDateTime.now());
+            jdbcTemplate.update("INSERT INTO " + table + "_archive (" + columns + ", archived_at) " +
+                    "SELECT " + columns + ", :archivedAt FROM " + table + " WHERE id IN (:ids)", batch);
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE id IN (:ids)", batch);
+            return rows;
+        });
+    }
+}
@@ -0,0 +1,146 @@
+package com.hospital.hms.service;
+
+import com.hospital.hms.dto.DayAvailability;
+import com.hospital.hms.dto.DoctorSlot;
+import com.hospital.hms.dto.UserSummary;
+import com.hospital.hms.entity.Role;
+import com.hospital.hms.entity.User;
+import com.hospital.hms.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Open booking slots, read from the schedule index's per-day bitmaps without touching the database.
+ */
+@Service
+@Timed("hms.service")
+public class AvailabilityService {
+    public static final int MAX_RANGE_DAYS = 31;
+    public static final int MAX_EARLIEST_SLOTS = 50;
+
+    private static final Comparator<SlotCursor> EARLIEST_FIRST =
+            Comparator.comparing((SlotCursor cursor) -> cursor.current).thenComparing(cursor -> cursor.doctor.id());
+
+    @Autowired
+    private AppointmentScheduleIndex scheduleIndex;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SpecializationIndex specializationIndex;
+
+    public List<DayAvailability> getAvailability(Long doctorId, LocalDate from, LocalDate to) {
+        User doctor = userRepository.findById(doctorId)
+                .filter(user -> user.getRole() == Role.DOCTOR)
+                .orElseThrow(() -> new IllegalArgumentException("Doctor not found with id: " + doctorId));
+        checkRange(from, to);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<DayAvailability> availability = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            if (day.isBefore(now.toLocalDate())) {
+                continue;
+            }
+            List<LocalTime> slots = new ArrayList<>();
+            for (long free = scheduleIndex.freeSlots(doctor.getId(), day); free != 0; free &= free - 1) {
+                LocalDateTime start = scheduleIndex.slotStart(day, Long.numberOfTrailingZeros(free));
+                if (start.isAfter(now)) {
+                    slots.add(start.toLocalTime());
+                }
+            }
+            availability.add(new DayAvailability(day, slots));
+        }
+        return availability;
+    }
+
+    /**
+     * Returns the earliest open slots in the window across every doctor with the specialization,
+     * merging the doctors' slot sequences so that each is only read as far as needed.
+     */
+    public List<DoctorSlot> findEarliestSlots(String specialization, LocalDateTime from, LocalDateTime to, int limit) {
+        checkRange(from.toLocalDate(), to.toLocalDate());
+        if (limit < 1 || limit > MAX_EARLIEST_SLOTS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_EARLIEST_SLOTS);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = from.isAfter(now) ? from : now;
+
+        PriorityQueue<SlotCursor> cursors = new PriorityQueue<>(EARLIEST_FIRST);
+        for (UserSummary doctor : specializationIndex.getDoctors(specialization)) {
+            SlotCursor cursor = new SlotCursor(doctor, start, to);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+
+        List<DoctorSlot> slots = new ArrayList<>(limit);
+        while (slots.size() < limit && !cursors.isEmpty()) {
+            SlotCursor cursor = cursors.poll();
+            slots.add(new DoctorSlot(cursor.doctor, cursor.current));
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        return slots;
+    }
+
+    // Walks one doctor's free slots in time order, loading a day's bitmap only when it is reached
+    private final class SlotCursor {
+        private final UserSummary doctor;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private LocalDate day;
+        private long free;
+        private LocalDateTime current;
+
+        SlotCursor(UserSummary doctor, LocalDateTime from, LocalDateTime to) {
+            this.doctor = doctor;
+            this.from = from;
+            this.to = to;
+            this.day = from.toLocalDate();
+            this.free = scheduleIndex.freeSlots(doctor.id(), day);
+        }
+
+        boolean advance() {
+            while (true) {
+                while (free == 0) {
+                    day = day.plusDays(1);
+                    if (day.isAfter(to.toLocalDate())) {
+                        return false;
+                    }
+                    free = scheduleIndex.freeSlots(doctor.id(), day);
+                }
+                LocalDateTime start = scheduleIndex.slotStart(day, Long.numberOfTrailingZeros(free));
+                free &= free - 1;
+                if (start.isAfter(to)) {
+                    return false;
+                }
+                if (!start.isBefore(from)) {
+                    current = start;
+                    return true;
+                }
+            }
+        }
+    }
+
+    static void checkRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range cannot exceed " + MAX_RANGE_DAYS + " days");
+        }
+    }
+}
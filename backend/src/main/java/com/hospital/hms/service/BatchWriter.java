@@ -0,0 +1,47 @@
+package com.hospital.hms.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Inserts many new entities in one transaction. Hibernate groups the inserts into JDBC batches of
+ * hibernate.jdbc.batch_size; the persistence context is flushed and cleared after each batch so it
+ * never holds more than one batch of rows.
+ */
+@Component
+public class BatchWriter {
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int batchSize;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Persists all entities or none. The entities are detached, with their ids assigned, on return.
+     */
+    public <T> List<T> persistAll(List<T> entities) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < entities.size(); i++) {
+                entityManager.persist(entities.get(i));
+                if ((i + 1) % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+        return entities;
+    }
+}
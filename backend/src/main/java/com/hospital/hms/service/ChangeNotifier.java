@@ -0,0 +1,423 @@
+package com.hospital.hms.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.hms.event.AppointmentChangeBatch;
+import com.hospital.hms.event.AppointmentChangedEvent;
+import com.hospital.hms.event.PrescriptionChangeBatch;
+import com.hospital.hms.event.PrescriptionChangedEvent;
+import com.hospital.hms.event.SharedAppointmentChanges;
+import com.hospital.hms.event.SharedPrescriptionChanges;
+import com.hospital.hms.event.SharedUserChanges;
+import com.hospital.hms.event.UserChangeBatch;
+import com.hospital.hms.event.UserChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Pushes appointment and prescription changes to the doctor and patient involved over
+ * Server-Sent Events. A change is written to the change_notifications table and every instance
+ * polls the table, so it reaches the recipients' streams whichever instance they are connected to.
+ * User changes go through the table as well but have no recipients. Every change read from the
+ * table is republished as a {@link SharedAppointmentChanges}, {@link SharedPrescriptionChanges} or
+ * {@link SharedUserChanges}, so in-memory state on every instance follows it. A bulk write's
+ * changes are written with multi-row inserts.
+ *
+ * Open streams are parked async requests and hold no thread. Each stream has a bounded queue of
+ * events that a small pool of writer threads drains, so a slow client only holds up its own stream;
+ * a stream whose queue fills up is closed, and the client reconnects and reloads its lists. One
+ * scheduler thread polls the table and queues heartbeats, which keep idle connections from being
+ * closed by proxies, but never writes to a stream itself.
+ */
+@Component
+public class ChangeNotifier implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeNotifier.class);
+
+    private static final String TABLE = "change_notifications";
+    private static final String APPOINTMENT = "appointment";
+    private static final String PRESCRIPTION = "prescription";
+    private static final String USER = "user";
+    private static final int POLL_BATCH_SIZE = 500;
+    private static final int INSERT_BATCH_SIZE = 500;
+    // Ids below the last one read that were not there yet: another instance's insert may commit late
+    private static final int MAX_GAPS = 256;
+    private static final long GAP_WAIT_MILLIS = 5000;
+    private static final long RETENTION_MINUTES = 10;
+
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long timeoutMillis;
+    private final int maxStreamsPerUser;
+    private final int queueCapacity;
+    private final long heartbeatSeconds;
+    private final long pollMillis;
+
+    private final Map<Long, Deque<Stream>> streamsByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger openStreams = new AtomicInteger();
+
+    // Only touched by the scheduler thread
+    private long lastId = -1;
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(daemon("change-notifier"));
+    private final ExecutorService writers;
+    private volatile boolean running;
+
+    public ChangeNotifier(ObjectMapper objectMapper,
+                          JdbcTemplate jdbcTemplate,
+                          ApplicationEventPublisher eventPublisher,
+                          @Value("${app.events.timeoutMillis:1800000}") long timeoutMillis,
+                          @Value("${app.events.maxStreamsPerUser:4}") int maxStreamsPerUser,
+                          @Value("${app.events.queueCapacity:64}") int queueCapacity,
+                          @Value("${app.events.heartbeatSeconds:25}") long heartbeatSeconds,
+                          @Value("${app.events.pollMillis:500}") long pollMillis,
+                          @Value("${app.events.writerThreads:4}") int writerThreads) {
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.timeoutMillis = timeoutMillis;
+        this.maxStreamsPerUser = maxStreamsPerUser;
+        this.queueCapacity = queueCapacity;
+        this.heartbeatSeconds = heartbeatSeconds;
+        this.pollMillis = pollMillis;
+        writers = Executors.newFixedThreadPool(writerThreads, daemon("change-notifier-writer"));
+    }
+
+    // Polling starts once every singleton exists, so shared changes never reach a listener that is still being built
+    @Override
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::poll, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::prune, 1, 1, TimeUnit.MINUTES);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdownNow();
+        writers.shutdownNow();
+        streamsByUser.values().forEach(streams -> streams.forEach(stream -> stream.emitter.complete()));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Opens a stream for the user. When the user already has the maximum number of streams open
+     * the oldest one is closed.
+     */
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Stream stream = new Stream(userId, emitter);
+        Deque<Stream> streams = streamsByUser.compute(userId, (key, existing) -> {
+            Deque<Stream> deque = existing != null ? existing : new ConcurrentLinkedDeque<>();
+            deque.addLast(stream);
+            return deque;
+        });
+        openStreams.incrementAndGet();
+
+        emitter.onCompletion(() -> unregister(stream));
+        emitter.onTimeout(() -> {
+            unregister(stream);
+            emitter.complete();
+        });
+        emitter.onError(error -> {
+            unregister(stream);
+            emitter.complete();
+        });
+
+        Stream oldest;
+        while (streams.size() > maxStreamsPerUser && (oldest = streams.peekFirst()) != stream && oldest != null) {
+            oldest.close();
+        }
+
+        // Tells the client the stream is live; anything changed before this must be read from the lists
+        stream.enqueue(SseEmitter.event().name("ready").data("{}", MediaType.APPLICATION_JSON));
+        return emitter;
+    }
+
+    public int getOpenStreams() {
+        return openStreams.get();
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        publish(APPOINTMENT, List.of(event), AppointmentChangedEvent::doctorId, AppointmentChangedEvent::patientId);
+    }
+
+    @EventListener
+    public void onAppointmentChangeBatch(AppointmentChangeBatch batch) {
+        publish(APPOINTMENT, batch.changes(), AppointmentChangedEvent::doctorId, AppointmentChangedEvent::patientId);
+    }
+
+    @EventListener
+    public void onPrescriptionChanged(PrescriptionChangedEvent event) {
+        publish(PRESCRIPTION, List.of(event), PrescriptionChangedEvent::doctorId, PrescriptionChangedEvent::patientId);
+    }
+
+    @EventListener
+    public void onPrescriptionChangeBatch(PrescriptionChangeBatch batch) {
+        publish(PRESCRIPTION, batch.changes(), PrescriptionChangedEvent::doctorId, PrescriptionChangedEvent::patientId);
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        publish(USER, List.of(event), change -> null, change -> null);
+    }
+
+    @EventListener
+    public void onUserChangeBatch(UserChangeBatch batch) {
+        publish(USER, batch.changes(), change -> null, change -> null);
+    }
+
+    // One multi-row insert per INSERT_BATCH_SIZE changes
+    private <E> void publish(String name, List<E> events, Function<E, Long> doctorOf, Function<E, Long> patientOf) {
+        for (int from = 0; from < events.size(); from += INSERT_BATCH_SIZE) {
+            List<E> chunk = events.subList(from, Math.min(from + INSERT_BATCH_SIZE, events.size()));
+            try {
+                List<Object> args = new ArrayList<>(chunk.size() * 4);
+                for (E event : chunk) {
+                    args.add(name);
+                    args.add(doctorOf.apply(event));
+                    args.add(patientOf.apply(event));
+                    args.add(objectMapper.writeValueAsString(event));
+                }
+                jdbcTemplate.update("INSERT INTO " + TABLE + " (name, doctor_id, patient_id, payload, created_at) VALUES " +
+                        String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?, ?, CURRENT_TIMESTAMP(6))")), args.toArray());
+            } catch (JsonProcessingException | DataAccessException e) {
+                // The changes themselves are committed; their recipients see them when they next reload
+                logger.error("Cannot publish {} {} changes", chunk.size(), name, e);
+            }
+        }
+    }
+
+    private void poll() {
+        try {
+            if (lastId < 0) {
+                // Start after whatever is already there: those changes happened before any stream here opened
+                lastId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + TABLE, Long.class);
+                return;
+            }
+            long now = System.currentTimeMillis();
+            gaps.values().removeIf(giveUpAt -> giveUpAt < now);
+
+            List<Object> args = new ArrayList<>(gaps.keySet());
+            args.add(lastId);
+            String sql = "SELECT id, name, doctor_id, patient_id, payload FROM " + TABLE + " WHERE " +
+                    (gaps.isEmpty() ? "" : "id IN (" + String.join(", ", Collections.nCopies(gaps.size(), "?")) + ") OR ") +
+                    "id > ? ORDER BY id LIMIT " + POLL_BATCH_SIZE;
+            List<FeedRow> rows = jdbcTemplate.query(sql, (rs, rowNum) -> new FeedRow(rs.getLong("id"), rs.getString("name"),
+                    rs.getObject("doctor_id", Long.class), rs.getObject("patient_id", Long.class), rs.getString("payload")), args.toArray());
+
+            List<FeedRow> fresh = new ArrayList<>(rows.size());
+            for (FeedRow row : rows) {
+                if (row.id() > lastId) {
+                    for (long missing = lastId + 1; missing < row.id() && gaps.size() < MAX_GAPS; missing++) {
+                        gaps.put(missing, now + GAP_WAIT_MILLIS);
+                    }
+                    lastId = row.id();
+                } else if (gaps.remove(row.id()) == null) {
+                    continue;
+                }
+                if (row.doctorId() != null) {
+                    deliver(row.id(), row.name(), row.payload(), List.of(row.doctorId(), row.patientId()));
+                }
+                fresh.add(row);
+            }
+            share(fresh);
+            if (rows.size() == POLL_BATCH_SIZE) {
+                // A bulk write is still being read; go on without waiting for the next poll
+                scheduler.execute(this::poll);
+            }
+        } catch (RuntimeException e) {
+            // Keep the task scheduled; the next poll picks up where this one stopped
+            logger.warn("Cannot poll change notifications", e);
+        }
+    }
+
+    private void deliver(long id, String name, String payload, List<Long> recipients) {
+        for (Long userId : recipients) {
+            Deque<Stream> streams = streamsByUser.get(userId);
+            if (streams == null) {
+                continue;
+            }
+            for (Stream stream : streams) {
+                stream.enqueue(SseEmitter.event().id(Long.toString(id)).name(name).data(payload, MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+
+    // Consecutive changes of one kind are shared as one event, so listeners can apply them together in feed order
+    private void share(List<FeedRow> rows) {
+        int start = 0;
+        for (int i = 1; i <= rows.size(); i++) {
+            if (i == rows.size() || !rows.get(i).name().equals(rows.get(start).name())) {
+                share(rows.get(start).name(), rows.subList(start, i));
+                start = i;
+            }
+        }
+    }
+
+    private void share(String name, List<FeedRow> rows) {
+        try {
+            Object shared = switch (name) {
+                case APPOINTMENT -> new SharedAppointmentChanges(read(rows, AppointmentChangedEvent.class));
+                case PRESCRIPTION -> new SharedPrescriptionChanges(read(rows, PrescriptionChangedEvent.class));
+                case USER -> new SharedUserChanges(read(rows, UserChangedEvent.class));
+                default -> null;
+            };
+            if (shared != null) {
+                eventPublisher.publishEvent(shared);
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("Cannot share {} {} changes from id {}", rows.size(), name, rows.get(0).id(), e);
+        }
+    }
+
+    private <E> List<E> read(List<FeedRow> rows, Class<E> type) throws JsonProcessingException {
+        List<E> changes = new ArrayList<>(rows.size());
+        for (FeedRow row : rows) {
+            changes.add(objectMapper.readValue(row.payload(), type));
+        }
+        return changes;
+    }
+
+    private void prune() {
+        try {
+            jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE created_at < CURRENT_TIMESTAMP(6) - INTERVAL '"
+                    + RETENTION_MINUTES + "' MINUTE");
+        } catch (RuntimeException e) {
+            logger.warn("Cannot prune change notifications", e);
+        }
+    }
+
+    private void sendHeartbeats() {
+        streamsByUser.values().forEach(streams -> streams.forEach(stream -> stream.enqueue(SseEmitter.event().comment("heartbeat"))));
+    }
+
+    private void unregister(Stream stream) {
+        stream.closed = true;
+        streamsByUser.computeIfPresent(stream.userId, (key, streams) -> {
+            if (streams.remove(stream)) {
+                openStreams.decrementAndGet();
+            }
+            return streams.isEmpty() ? null : streams;
+        });
+    }
+
+    // Recipients are null for user changes
+    private record FeedRow(long id, String name, Long doctorId, Long patientId, String payload) {}
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * An open stream and the events waiting to be written to it. At most one writer drains a
+     * stream at a time, so its events go out in order and the emitter is only ever written to and
+     * completed by that writer.
+     */
+    private final class Stream {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile boolean completed;
+
+        Stream(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void enqueue(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                logger.debug("Closing the event stream of user {}: {} events are waiting", userId, queueCapacity);
+                close();
+                return;
+            }
+            schedule();
+        }
+
+        void close() {
+            unregister(this);
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this::drain);
+                } catch (RuntimeException e) {
+                    // Shutting down
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = queue.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        // The client went away or the stream already completed
+                        unregister(this);
+                    }
+                }
+                if (closed && !completed) {
+                    completed = true;
+                    queue.clear();
+                    emitter.complete();
+                }
+            } finally {
+                draining.set(false);
+            }
+            // Anything queued or closed after the loop looked would otherwise wait for the next event
+            if (closed ? !completed : !queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.hospital.hms.service;
+
+import com.hospital.hms.entity.AppointmentStatus;
+import com.hospital.hms.entity.Role;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Row counts for the admin dashboard. They are kept in the database by {@link ResourceVersions},
+ * which applies every change event to them in the statement that bumps the ETag versions, so every
+ * instance reports the same numbers whichever instance made the writes (or ran the archive job),
+ * and reading them is one range read instead of COUNT queries.
+ */
+@Component
+public class DashboardStatistics {
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    public record Counts(Map<Role, Long> usersByRole,
+                         Map<AppointmentStatus, Long> appointmentsByStatus, long prescriptions) {
+
+        public long getUserCount(Role role) {
+            return usersByRole.getOrDefault(role, 0L);
+        }
+
+        public long getAppointmentCount() {
+            return appointmentsByStatus.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+
+    /**
+     * Returns the current counts. Read them in the transaction that reads the dashboard's ETag, so
+     * both describe the same writes.
+     */
+    public Counts getCounts() {
+        Map<String, Long> counts = resourceVersions.counts();
+
+        Map<Role, Long> usersByRole = new EnumMap<>(Role.class);
+        for (Role role : Role.values()) {
+            usersByRole.put(role, counts.getOrDefault(ResourceVersions.userCount(role), 0L));
+        }
+
+        Map<AppointmentStatus, Long> appointmentsByStatus = new EnumMap<>(AppointmentStatus.class);
+        for (AppointmentStatus status : AppointmentStatus.values()) {
+            appointmentsByStatus.put(status, counts.getOrDefault(ResourceVersions.appointmentCount(status), 0L));
+        }
+
+        return new Counts(Collections.unmodifiableMap(usersByRole), Collections.unmodifiableMap(appointmentsByStatus),
+                counts.getOrDefault(ResourceVersions.PRESCRIPTION_COUNT, 0L));
+    }
+}
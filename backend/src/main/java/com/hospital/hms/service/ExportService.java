@@ -0,0 +1,250 @@
+package com.hospital.hms.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.hms.entity.Appointment;
+import com.hospital.hms.entity.ArchivedAppointment;
+import com.hospital.hms.entity.ArchivedPrescription;
+import com.hospital.hms.entity.Prescription;
+import com.hospital.hms.entity.User;
+import com.hospital.hms.repository.AppointmentRepository;
+import com.hospital.hms.repository.ArchivedAppointmentRepository;
+import com.hospital.hms.repository.ArchivedPrescriptionRepository;
+import com.hospital.hms.repository.PrescriptionRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Streams appointments and prescriptions straight from a forward-only, row-streaming result set to
+ * an output stream. Rows are detached as they are written and the persistence context is cleared
+ * after every chunk, so memory use does not depend on the number of rows exported. Only the export
+ * queries stream; every other query on the pool reads its result as usual.
+ *
+ * Archived rows follow the live ones unless left out, each part in id order; their archivedAt column
+ * is set. The parts are read one after the other, as a connection streams one result at a time.
+ */
+@Service
+@Timed("hms.service")
+public class ExportService {
+    private static final int CHUNK_SIZE = 500;
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private static final List<String> APPOINTMENT_COLUMNS = List.of("id", "patientId", "patientName", "doctorId",
+            "doctorName", "appointmentDateTime", "status", "reason", "notes", "createdAt", "updatedAt", "archivedAt");
+
+    private static final List<String> PRESCRIPTION_COLUMNS = List.of("id", "patientId", "patientName", "doctorId",
+            "doctorName", "medicineName", "dosage", "instructions", "duration", "prescribedDate", "archivedAt");
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+
+        public static Format parse(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported export format: " + name);
+        }
+    }
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private PrescriptionRepository prescriptionRepository;
+
+    @Autowired
+    private ArchivedAppointmentRepository archivedAppointmentRepository;
+
+    @Autowired
+    private ArchivedPrescriptionRepository archivedPrescriptionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public void exportAppointments(Format format, boolean includeArchived, OutputStream out) {
+        List<Part<?>> parts = new ArrayList<>();
+        parts.add(new Part<>(appointmentRepository::streamAllForExport, (Appointment a) -> new Object[] {
+                a.getId(),
+                a.getPatient().getId(), fullName(a.getPatient()),
+                a.getDoctor().getId(), fullName(a.getDoctor()),
+                format(a.getAppointmentDateTime()),
+                a.getStatus(),
+                a.getReason(),
+                a.getNotes(),
+                format(a.getCreatedAt()),
+                format(a.getUpdatedAt()),
+                null
+        }));
+        if (includeArchived) {
+            parts.add(new Part<>(archivedAppointmentRepository::streamAllForExport, (ArchivedAppointment a) -> new Object[] {
+                    a.getId(),
+                    a.getPatient().getId(), fullName(a.getPatient()),
+                    a.getDoctor().getId(), fullName(a.getDoctor()),
+                    format(a.getAppointmentDateTime()),
+                    a.getStatus(),
+                    a.getReason(),
+                    a.getNotes(),
+                    format(a.getCreatedAt()),
+                    format(a.getUpdatedAt()),
+                    format(a.getArchivedAt())
+            }));
+        }
+        export(parts, APPOINTMENT_COLUMNS, format, out);
+    }
+
+    public void exportPrescriptions(Format format, boolean includeArchived, OutputStream out) {
+        List<Part<?>> parts = new ArrayList<>();
+        parts.add(new Part<>(prescriptionRepository::streamAllForExport, (Prescription p) -> new Object[] {
+                p.getId(),
+                p.getPatient().getId(), fullName(p.getPatient()),
+                p.getDoctor().getId(), fullName(p.getDoctor()),
+                p.getMedicineName(),
+                p.getDosage(),
+                p.getInstructions(),
+                p.getDuration(),
+                format(p.getPrescribedDate()),
+                null
+        }));
+        if (includeArchived) {
+            parts.add(new Part<>(archivedPrescriptionRepository::streamAllForExport, (ArchivedPrescription p) -> new Object[] {
+                    p.getId(),
+                    p.getPatient().getId(), fullName(p.getPatient()),
+                    p.getDoctor().getId(), fullName(p.getDoctor()),
+                    p.getMedicineName(),
+                    p.getDosage(),
+                    p.getInstructions(),
+                    p.getDuration(),
+                    format(p.getPrescribedDate()),
+                    format(p.getArchivedAt())
+            }));
+        }
+        export(parts, PRESCRIPTION_COLUMNS, format, out);
+    }
+
+    // One query's rows and how each becomes the export's column values
+    private record Part<T>(Supplier<Stream<T>> source, Function<T, Object[]> values) {}
+
+    private void export(List<Part<?>> parts, List<String> columns, Format format, OutputStream out) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        transaction.executeWithoutResult(status -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            try {
+                if (format == Format.CSV) {
+                    writeCsvLine(writer, columns.toArray());
+                }
+                for (Part<?> part : parts) {
+                    write(part, columns, format, writer);
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private <T> void write(Part<T> part, List<String> columns, Format format, Writer writer) throws IOException {
+        try (Stream<T> rows = part.source().get()) {
+            int written = 0;
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                T row = iterator.next();
+                if (format == Format.CSV) {
+                    writeCsvLine(writer, part.values().apply(row));
+                } else {
+                    writeJsonLine(writer, columns, part.values().apply(row));
+                }
+                entityManager.detach(row);
+
+                if (++written % CHUNK_SIZE == 0) {
+                    // Patients and doctors are shared across rows and stay managed until the context is cleared
+                    entityManager.clear();
+                    writer.flush();
+                }
+            }
+        }
+        // The next part's rows are new entities; the users of this one can go
+        entityManager.clear();
+    }
+
+    private void writeJsonLine(Writer writer, List<String> columns, Object[] values) throws IOException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            row.put(columns.get(i), values[i]);
+        }
+        writer.write(objectMapper.writeValueAsString(row));
+        writer.write('\n');
+    }
+
+    private void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    private static String escapeCsv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private static String fullName(User user) {
+        return user.getFirstName() + " " + user.getLastName();
+    }
+
+    private static String format(LocalDateTime dateTime) {
+        return dateTime != null ? DATE_TIME_FORMAT.format(dateTime) : null;
+    }
+}
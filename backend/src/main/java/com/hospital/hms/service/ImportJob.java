@@ -0,0 +1,92 @@
+package com.hospital.hms.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress and per-row errors of one CSV import. Counters are updated by the import thread and
+ * read by status requests at any time.
+ */
+public class ImportJob {
+    public static final int MAX_RECORDED_ERRORS = 10_000;
+
+    public enum Type { PATIENTS, APPOINTMENTS }
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    public record RowError(long row, String message) {}
+
+    private final String id;
+    private final Type type;
+    private final String fileName;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile LocalDateTime finishedAt;
+    private volatile Status status = Status.RUNNING;
+    private volatile String message;
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong passwordResets = new AtomicLong();
+    private final List<RowError> errors = new ArrayList<>();
+
+    public ImportJob(String id, Type type, String fileName) {
+        this.id = id;
+        this.type = type;
+        this.fileName = fileName;
+    }
+
+    void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    void imported(long count) {
+        imported.addAndGet(count);
+    }
+
+    void passwordReset() {
+        passwordResets.incrementAndGet();
+    }
+
+    void rowFailed(long row, String message) {
+        failed.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < MAX_RECORDED_ERRORS) {
+                errors.add(new RowError(row, message));
+            }
+        }
+    }
+
+    void finish(Status status, String message) {
+        this.message = message;
+        this.finishedAt = LocalDateTime.now();
+        this.status = status;
+    }
+
+    public String getId() { return id; }
+    public Type getType() { return type; }
+    public String getFileName() { return fileName; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public Status getStatus() { return status; }
+    public String getMessage() { return message; }
+    public long getRowsRead() { return rowsRead.get(); }
+    public long getImported() { return imported.get(); }
+    public long getFailed() { return failed.get(); }
+    public long getPasswordResets() { return passwordResets.get(); }
+
+    public boolean isErrorsTruncated() {
+        return failed.get() > MAX_RECORDED_ERRORS;
+    }
+
+    @JsonIgnore
+    public List<RowError> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+}
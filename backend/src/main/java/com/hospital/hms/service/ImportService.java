@@ -0,0 +1,570 @@
+package com.hospital.hms.service;
+
+import com.hospital.hms.dto.AppointmentRequest;
+import com.hospital.hms.dto.SignupRequest;
+import com.hospital.hms.entity.Appointment;
+import com.hospital.hms.entity.AppointmentStatus;
+import com.hospital.hms.entity.Role;
+import com.hospital.hms.entity.User;
+import com.hospital.hms.event.AppointmentChangeBatch;
+import com.hospital.hms.event.AppointmentChangedEvent;
+import com.hospital.hms.event.ChangeType;
+import com.hospital.hms.event.UserChangeBatch;
+import com.hospital.hms.event.UserChangedEvent;
+import com.hospital.hms.repository.UserRepository;
+import com.hospital.hms.security.OffloadingPasswordEncoder;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Imports patients and appointments from CSV uploads in the background. Files are parsed one record
+ * at a time, each row is validated with the same constraints as the API requests, and valid rows
+ * are written in batched transactions. Invalid rows are skipped and reported with their row number.
+ */
+@Service
+@Timed("hms.service")
+public class ImportService {
+    private static final Logger logger = LoggerFactory.getLogger(ImportService.class);
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_RETAINED_JOBS = 50;
+
+    // Accounts imported without a password get a value that no BCrypt hash check can match
+    private static final String UNUSABLE_PASSWORD = "!";
+
+    private static final List<String> PATIENT_REQUIRED_COLUMNS = List.of("username", "email", "firstName", "lastName");
+
+    @Value("${app.import.hashingThreads:0}")
+    private int hashingThreads;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BatchWriter batchWriter;
+
+    @Autowired
+    private OffloadingPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private AppointmentScheduleIndex scheduleIndex;
+
+    @Autowired
+    private AppointmentConflicts conflicts;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+
+    private final Map<String, ImportJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImportJob> eldest) {
+            return size() > MAX_RETAINED_JOBS;
+        }
+    });
+
+    private record Row(long number, List<String> fields) {}
+
+    private static class RowRejectedException extends RuntimeException {
+        RowRejectedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Stores the upload, checks its header and starts the import. Problems with the file as a whole
+     * are thrown here; problems with single rows end up in the job's error report.
+     */
+    public ImportJob startImport(ImportJob.Type type, MultipartFile file) {
+        Path path;
+        try {
+            path = Files.createTempFile("hms-import-", ".csv");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        try {
+            file.transferTo(path);
+            try (CsvReader csv = open(path)) {
+                checkColumns(type, columnIndex(csv.next()));
+            }
+        } catch (IOException e) {
+            deleteQuietly(path);
+            throw new IllegalArgumentException("Could not read CSV file: " + e.getMessage());
+        } catch (RuntimeException e) {
+            deleteQuietly(path);
+            throw e;
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), type, file.getOriginalFilename());
+        jobs.put(job.getId(), job);
+        taskExecutor.execute(() -> run(job, path));
+        return job;
+    }
+
+    public Optional<ImportJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * Renders the recorded row errors of a job as CSV.
+     */
+    public String errorReport(ImportJob job) {
+        StringBuilder report = new StringBuilder("row,message\r\n");
+        for (ImportJob.RowError error : job.getErrors()) {
+            report.append(error.row()).append(",\"").append(error.message().replace("\"", "\"\"")).append("\"\r\n");
+        }
+        return report.toString();
+    }
+
+    private void run(ImportJob job, Path path) {
+        try (CsvReader csv = open(path)) {
+            Map<String, Integer> columns = columnIndex(csv.next());
+            if (job.getType() == ImportJob.Type.PATIENTS) {
+                importPatients(job, csv, columns);
+            } else {
+                importAppointments(job, csv, columns);
+            }
+            job.finish(ImportJob.Status.COMPLETED, null);
+            logger.info("Import {} of {} finished: {} imported, {} failed", job.getId(), job.getType(),
+                    job.getImported(), job.getFailed());
+        } catch (Exception e) {
+            logger.error("Import {} of {} failed after {} rows", job.getId(), job.getType(), job.getRowsRead(), e);
+            job.finish(ImportJob.Status.FAILED, e.getMessage());
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            deleteQuietly(path);
+        }
+    }
+
+    private void importPatients(ImportJob job, CsvReader csv, Map<String, Integer> columns) throws Exception {
+        int threads = hashingThreads > 0 ? hashingThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ExecutorService hashing = Executors.newFixedThreadPool(threads);
+        try {
+            Set<String> usernamesInFile = new HashSet<>();
+            Set<String> emailsInFile = new HashSet<>();
+            Map<Long, SignupRequest> batch = new LinkedHashMap<>();
+
+            List<String> fields;
+            while ((fields = csv.next()) != null) {
+                job.rowRead();
+                Row row = new Row(csv.recordNumber(), fields);
+                SignupRequest request = toSignupRequest(row, columns);
+
+                String error = validatePatient(request);
+                if (error == null && !usernamesInFile.add(request.getUsername().toLowerCase(Locale.ROOT))) {
+                    error = "Username appears earlier in the file";
+                }
+                if (error == null && !emailsInFile.add(request.getEmail().toLowerCase(Locale.ROOT))) {
+                    error = "Email appears earlier in the file";
+                }
+                if (error != null) {
+                    job.rowFailed(row.number(), error);
+                    continue;
+                }
+
+                batch.put(row.number(), request);
+                if (batch.size() == BATCH_SIZE) {
+                    writePatients(job, batch, hashing);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writePatients(job, batch, hashing);
+            }
+        } finally {
+            hashing.shutdownNow();
+        }
+    }
+
+    private void writePatients(ImportJob job, Map<Long, SignupRequest> batch, ExecutorService hashing)
+            throws InterruptedException, ExecutionException {
+        Set<String> takenUsernames = lowerCase(userRepository.findExistingUsernames(
+                batch.values().stream().map(SignupRequest::getUsername).toList()));
+        Set<String> takenEmails = lowerCase(userRepository.findExistingEmails(
+                batch.values().stream().map(SignupRequest::getEmail).toList()));
+
+        List<Long> rows = new ArrayList<>();
+        List<SignupRequest> accepted = new ArrayList<>();
+        batch.forEach((row, request) -> {
+            if (takenUsernames.contains(request.getUsername().toLowerCase(Locale.ROOT))) {
+                job.rowFailed(row, "Username is already taken!");
+            } else if (takenEmails.contains(request.getEmail().toLowerCase(Locale.ROOT))) {
+                job.rowFailed(row, "Email is already in use!");
+            } else {
+                rows.add(row);
+                accepted.add(request);
+            }
+        });
+
+        List<Callable<String>> hashTasks = accepted.stream()
+                .map(request -> (Callable<String>) () -> isBlank(request.getPassword())
+                        ? UNUSABLE_PASSWORD
+                        : passwordEncoder.encodeOnCallingThread(request.getPassword()))
+                .toList();
+        List<Future<String>> hashes = hashing.invokeAll(hashTasks);
+
+        List<User> users = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            SignupRequest request = accepted.get(i);
+            User user = new User(request.getUsername(), request.getEmail(), hashes.get(i).get(),
+                    request.getFirstName(), request.getLastName(), request.getPhoneNumber(), Role.PATIENT);
+            user.setAddress(request.getAddress());
+            user.setEmergencyContact(request.getEmergencyContact());
+            user.setPasswordResetRequired(isBlank(request.getPassword()));
+            users.add(user);
+        }
+
+        try {
+            batchWriter.persistAll(users);
+        } catch (RuntimeException e) {
+            logger.warn("Import {} could not save a batch of {} patients", job.getId(), users.size(), e);
+            rows.forEach(row -> job.rowFailed(row, "Batch not saved: " + e.getMessage()));
+            return;
+        }
+
+        job.imported(users.size());
+        List<UserChangedEvent> changes = new ArrayList<>(users.size());
+        for (User user : users) {
+            if (user.isPasswordResetRequired()) {
+                job.passwordReset();
+            }
+            changes.add(new UserChangedEvent(ChangeType.CREATED, user.getId(), user.getRole()));
+        }
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new UserChangeBatch(changes));
+        }
+    }
+
+    private SignupRequest toSignupRequest(Row row, Map<String, Integer> columns) {
+        SignupRequest request = new SignupRequest();
+        request.setUsername(value(row, columns, "username"));
+        request.setEmail(value(row, columns, "email"));
+        request.setPassword(value(row, columns, "password"));
+        request.setFirstName(value(row, columns, "firstName"));
+        request.setLastName(value(row, columns, "lastName"));
+        request.setPhoneNumber(value(row, columns, "phoneNumber"));
+        request.setRole(Role.PATIENT);
+        request.setAddress(value(row, columns, "address"));
+        request.setEmergencyContact(value(row, columns, "emergencyContact"));
+        return request;
+    }
+
+    private String validatePatient(SignupRequest request) {
+        // A missing password is allowed here: the account is created and flagged for a reset
+        boolean passwordMissing = isBlank(request.getPassword());
+        return violationMessages(validator.validate(request).stream()
+                .filter(violation -> !(passwordMissing && violation.getPropertyPath().toString().equals("password")))
+                .collect(Collectors.toSet()));
+    }
+
+    private void importAppointments(ImportJob job, CsvReader csv, Map<String, Integer> columns) throws IOException {
+        Map<Long, NavigableSet<LocalDateTime>> schedulesInFile = new HashMap<>();
+        List<Row> batch = new ArrayList<>();
+
+        List<String> fields;
+        while ((fields = csv.next()) != null) {
+            job.rowRead();
+            batch.add(new Row(csv.recordNumber(), fields));
+            if (batch.size() == BATCH_SIZE) {
+                writeAppointments(job, batch, columns, schedulesInFile);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeAppointments(job, batch, columns, schedulesInFile);
+        }
+    }
+
+    private void writeAppointments(ImportJob job, List<Row> batch, Map<String, Integer> columns,
+                                   Map<Long, NavigableSet<LocalDateTime>> schedulesInFile) {
+        // Look up every user the batch refers to with two queries instead of two per row
+        Set<Long> ids = new HashSet<>();
+        Set<String> usernames = new HashSet<>();
+        for (Row row : batch) {
+            for (String prefix : List.of("patient", "doctor")) {
+                String id = value(row, columns, prefix + "Id");
+                if (id != null && id.matches("\\d{1,18}")) {
+                    ids.add(Long.valueOf(id));
+                }
+                String username = value(row, columns, prefix + "Username");
+                if (username != null) {
+                    usernames.add(username);
+                }
+            }
+        }
+        Map<Long, User> usersById = new HashMap<>();
+        userRepository.findAllById(ids).forEach(user -> usersById.put(user.getId(), user));
+        Map<String, User> usersByUsername = new HashMap<>();
+        if (!usernames.isEmpty()) {
+            userRepository.findByUsernameIn(usernames)
+                    .forEach(user -> usersByUsername.put(user.getUsername().toLowerCase(Locale.ROOT), user));
+        }
+
+        List<Long> rows = new ArrayList<>();
+        List<Appointment> appointments = new ArrayList<>();
+        for (Row row : batch) {
+            try {
+                appointments.add(toAppointment(row, columns, usersById, usersByUsername, schedulesInFile));
+                rows.add(row.number());
+            } catch (RowRejectedException e) {
+                job.rowFailed(row.number(), e.getMessage());
+            }
+        }
+
+        // Checked against the database and saved in one transaction that holds the doctors' locks
+        List<Long> unavailable = new ArrayList<>();
+        List<Appointment> notSaved = new ArrayList<>();
+        List<Appointment> saved;
+        try {
+            saved = new TransactionTemplate(transactionManager).execute(tx -> {
+                conflicts.lockDoctors(appointments.stream().map(appointment -> appointment.getDoctor().getId())
+                        .collect(Collectors.toSet()));
+                List<Appointment> available = new ArrayList<>(appointments.size());
+                for (int i = 0; i < appointments.size(); i++) {
+                    Appointment appointment = appointments.get(i);
+                    if (occupiesDoctor(appointment.getStatus()) && conflicts.hasConflict(
+                            appointment.getDoctor().getId(), appointment.getAppointmentDateTime(), null)) {
+                        unavailable.add(rows.get(i));
+                        notSaved.add(appointment);
+                    } else {
+                        available.add(appointment);
+                    }
+                }
+                return batchWriter.persistAll(available);
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Import {} could not save a batch of {} appointments", job.getId(), appointments.size(), e);
+            rows.forEach(row -> job.rowFailed(row, "Batch not saved: " + e.getMessage()));
+            forgetInFile(appointments, schedulesInFile);
+            return;
+        }
+
+        forgetInFile(notSaved, schedulesInFile);
+        unavailable.forEach(row -> job.rowFailed(row, "Doctor is not available at the requested time"));
+        job.imported(saved.size());
+        saved.forEach(scheduleIndex::update);
+        if (!saved.isEmpty()) {
+            eventPublisher.publishEvent(new AppointmentChangeBatch(saved.stream()
+                    .map(appointment -> AppointmentChangedEvent.of(ChangeType.CREATED, appointment, null))
+                    .toList()));
+        }
+    }
+
+    // Later rows may take the times of appointments that were not saved after all
+    private static void forgetInFile(List<Appointment> appointments, Map<Long, NavigableSet<LocalDateTime>> schedulesInFile) {
+        for (Appointment appointment : appointments) {
+            if (occupiesDoctor(appointment.getStatus())) {
+                NavigableSet<LocalDateTime> scheduleInFile = schedulesInFile.get(appointment.getDoctor().getId());
+                if (scheduleInFile != null) {
+                    scheduleInFile.remove(appointment.getAppointmentDateTime());
+                }
+            }
+        }
+    }
+
+    private Appointment toAppointment(Row row, Map<String, Integer> columns, Map<Long, User> usersById,
+                                      Map<String, User> usersByUsername,
+                                      Map<Long, NavigableSet<LocalDateTime>> schedulesInFile) {
+        User patient = resolveUser(row, columns, "patient", Role.PATIENT, usersById, usersByUsername);
+        User doctor = resolveUser(row, columns, "doctor", Role.DOCTOR, usersById, usersByUsername);
+        if (patient == null) {
+            throw new RowRejectedException("Patient ID is required");
+        }
+
+        LocalDateTime dateTime = null;
+        String dateTimeValue = value(row, columns, "appointmentDateTime");
+        if (dateTimeValue != null) {
+            try {
+                dateTime = LocalDateTime.parse(dateTimeValue);
+            } catch (DateTimeParseException e) {
+                throw new RowRejectedException("Invalid appointmentDateTime: " + dateTimeValue);
+            }
+        }
+
+        AppointmentRequest request = new AppointmentRequest(doctor != null ? doctor.getId() : null, dateTime,
+                value(row, columns, "reason"));
+        String error = violationMessages(validator.validate(request));
+        if (error != null) {
+            throw new RowRejectedException(error);
+        }
+
+        AppointmentStatus status = AppointmentStatus.SCHEDULED;
+        String statusValue = value(row, columns, "status");
+        if (statusValue != null) {
+            try {
+                status = AppointmentStatus.valueOf(statusValue.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new RowRejectedException("Invalid status: " + statusValue);
+            }
+        }
+
+        // Conflicts with the database are checked when the batch is saved
+        if (occupiesDoctor(status)) {
+            NavigableSet<LocalDateTime> scheduleInFile = schedulesInFile.computeIfAbsent(doctor.getId(), id -> new TreeSet<>());
+            LocalDateTime nearestBefore = scheduleInFile.floor(dateTime.plusMinutes(AppointmentScheduleIndex.CONFLICT_WINDOW_MINUTES));
+            if (nearestBefore != null && !nearestBefore.isBefore(dateTime.minusMinutes(AppointmentScheduleIndex.CONFLICT_WINDOW_MINUTES))) {
+                throw new RowRejectedException("Doctor is not available at the requested time");
+            }
+            scheduleInFile.add(dateTime);
+        }
+
+        Appointment appointment = new Appointment(patient, doctor, dateTime, request.getReason());
+        appointment.setStatus(status);
+        appointment.setNotes(value(row, columns, "notes"));
+        return appointment;
+    }
+
+    // Only appointments that still occupy the doctor's time can conflict
+    private static boolean occupiesDoctor(AppointmentStatus status) {
+        return status == AppointmentStatus.SCHEDULED || status == AppointmentStatus.CONFIRMED;
+    }
+
+    // Finds the user named by either the <prefix>Id or the <prefix>Username column
+    private User resolveUser(Row row, Map<String, Integer> columns, String prefix, Role role,
+                             Map<Long, User> usersById, Map<String, User> usersByUsername) {
+        String id = value(row, columns, prefix + "Id");
+        String username = value(row, columns, prefix + "Username");
+        String label = role == Role.DOCTOR ? "Doctor" : "Patient";
+
+        User user;
+        if (id != null) {
+            user = id.matches("\\d{1,18}") ? usersById.get(Long.valueOf(id)) : null;
+            if (user == null) {
+                throw new RowRejectedException(label + " not found with id: " + id);
+            }
+        } else if (username != null) {
+            user = usersByUsername.get(username.toLowerCase(Locale.ROOT));
+            if (user == null) {
+                throw new RowRejectedException(label + " not found with username: " + username);
+            }
+        } else {
+            return null;
+        }
+
+        if (user.getRole() != role) {
+            throw new RowRejectedException("User " + user.getUsername() + " is not a " + role.name().toLowerCase(Locale.ROOT));
+        }
+        return user;
+    }
+
+    private static void checkColumns(ImportJob.Type type, Map<String, Integer> columns) {
+        List<String> missing = new ArrayList<>();
+        if (type == ImportJob.Type.PATIENTS) {
+            PATIENT_REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).forEach(missing::add);
+        } else {
+            if (!columns.containsKey("patientId") && !columns.containsKey("patientUsername")) {
+                missing.add("patientId or patientUsername");
+            }
+            if (!columns.containsKey("doctorId") && !columns.containsKey("doctorUsername")) {
+                missing.add("doctorId or doctorUsername");
+            }
+            if (!columns.containsKey("appointmentDateTime")) {
+                missing.add("appointmentDateTime");
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("CSV header is missing columns: " + String.join(", ", missing));
+        }
+    }
+
+    private static Map<String, Integer> columnIndex(List<String> header) {
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            // Tolerate a UTF-8 byte order mark written by spreadsheet tools
+            columns.put(header.get(i).replace("\uFEFF", "").trim(), i);
+        }
+        return columns;
+    }
+
+    private static String value(Row row, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= row.fields().size()) {
+            return null;
+        }
+        String value = row.fields().get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static <T> String violationMessages(Set<ConstraintViolation<T>> violations) {
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+    }
+
+    private static Set<String> lowerCase(List<String> values) {
+        return values.stream().map(value -> value.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static CsvReader open(Path path) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+        return new CsvReader(reader);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete import file {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.hospital.hms.service;
+
+import com.hospital.hms.dto.MedicineSuggestion;
+import com.hospital.hms.event.ChangeType;
+import com.hospital.hms.event.PrescriptionChangedEvent;
+import com.hospital.hms.event.SharedPrescriptionChanges;
+import com.hospital.hms.repository.PrescriptionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Medicine names seen in prescriptions, in a radix trie keyed by the lower-cased name, with how
+ * often each was prescribed overall, by each doctor and at each dosage. Built at startup from a
+ * streamed aggregate of the prescriptions table and counted up as the change feed reports
+ * prescriptions created through any instance, so suggestions never query the database.
+ *
+ * A medicine's score for a doctor is its prescription count plus doctorHistoryWeight times the
+ * doctor's own count. Every node keeps the largest overall and per-doctor count below it, which
+ * bounds the score of anything in its subtree; suggestions are collected best-first and the walk
+ * stops as soon as the limit is reached, so a short prefix does not visit the whole trie.
+ */
+@Component
+public class MedicineIndex {
+    private static final Logger logger = LoggerFactory.getLogger(MedicineIndex.class);
+
+    public static final int MAX_SUGGESTIONS = 20;
+    private static final int DOSAGES_PER_SUGGESTION = 3;
+
+    @Autowired
+    private PrescriptionRepository prescriptionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.medicines.doctorHistoryWeight:10}")
+    private long doctorHistoryWeight;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Node root = new Node("");
+    private int medicines;
+
+    @PostConstruct
+    public void rebuild() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        lock.writeLock().lock();
+        try {
+            root = new Node("");
+            medicines = 0;
+            transaction.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = prescriptionRepository.streamMedicineUsage()) {
+                    rows.forEach(row -> add((String) row[0], (String) row[1], (Long) row[2], (Long) row[3]));
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Medicine index built with {} medicines", medicines);
+    }
+
+    /**
+     * Returns up to limit medicines whose name starts with the prefix (case-insensitively), the
+     * highest scoring for the doctor first.
+     */
+    public List<MedicineSuggestion> suggest(Long doctorId, String prefix, int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        String key = prefix == null ? "" : normalize(prefix);
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("Prefix is required");
+        }
+
+        lock.readLock().lock();
+        try {
+            Node start = find(key);
+            if (start == null) {
+                return List.of();
+            }
+            // Nodes ranked by the bound on their subtree, medicines by their score; a medicine
+            // polled before every remaining bound cannot be beaten by anything still queued
+            PriorityQueue<Ranked> queue = new PriorityQueue<>(Comparator.comparingLong(Ranked::rank).reversed());
+            queue.add(new Ranked(start, null, bound(start)));
+            List<MedicineSuggestion> suggestions = new ArrayList<>(limit);
+            while (!queue.isEmpty() && suggestions.size() < limit) {
+                Ranked next = queue.poll();
+                if (next.medicine() != null) {
+                    suggestions.add(next.medicine().toSuggestion(doctorId));
+                    continue;
+                }
+                Node node = next.node();
+                if (node.medicine != null) {
+                    queue.add(new Ranked(null, node.medicine, score(node.medicine, doctorId)));
+                }
+                for (Node child : node.children.values()) {
+                    queue.add(new Ranked(child, null, bound(child)));
+                }
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The feed also carries this instance's own changes, so local events are not counted as well
+    @EventListener
+    public void onSharedPrescriptionChanges(SharedPrescriptionChanges shared) {
+        lock.writeLock().lock();
+        try {
+            for (PrescriptionChangedEvent change : shared.changes()) {
+                // Counts only go up: an edited or deleted prescription was still prescribed
+                if (change.type() == ChangeType.CREATED) {
+                    add(change.medicineName(), change.dosage(), change.doctorId(), 1);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long score(Medicine medicine, Long doctorId) {
+        return medicine.count + doctorHistoryWeight * medicine.countsByDoctor.getOrDefault(doctorId, 0L);
+    }
+
+    private long bound(Node node) {
+        return node.maxCount + doctorHistoryWeight * node.maxDoctorCount;
+    }
+
+    // The node holding every name that starts with the key, or null when there is none
+    private Node find(String key) {
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            Node child = node.children.get(key.charAt(matched));
+            if (child == null) {
+                return null;
+            }
+            String rest = key.substring(matched);
+            if (child.label.startsWith(rest)) {
+                return child;
+            }
+            if (!rest.startsWith(child.label)) {
+                return null;
+            }
+            matched += child.label.length();
+            node = child;
+        }
+        return node;
+    }
+
+    private void add(String name, String dosage, Long doctorId, long count) {
+        String key = name == null ? "" : normalize(name);
+        if (key.isEmpty()) {
+            return;
+        }
+
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            path.add(node);
+            String rest = key.substring(matched);
+            Node child = node.children.get(rest.charAt(0));
+            if (child == null) {
+                child = new Node(rest);
+                node.children.put(rest.charAt(0), child);
+            } else if (!rest.startsWith(child.label)) {
+                child = split(node, child, commonPrefixLength(child.label, rest));
+            }
+            matched += child.label.length();
+            node = child;
+        }
+        path.add(node);
+
+        if (node.medicine == null) {
+            node.medicine = new Medicine(name.trim());
+            medicines++;
+        }
+        Medicine medicine = node.medicine;
+        medicine.count += count;
+        long doctorCount = doctorId == null ? 0 : medicine.countsByDoctor.merge(doctorId, count, Long::sum);
+        if (dosage != null && !dosage.isBlank()) {
+            medicine.dosages.merge(dosage.trim(), count, Long::sum);
+        }
+        for (Node onPath : path) {
+            onPath.maxCount = Math.max(onPath.maxCount, medicine.count);
+            onPath.maxDoctorCount = Math.max(onPath.maxDoctorCount, doctorCount);
+        }
+    }
+
+    // Puts a node for the first length characters of child's label between parent and child
+    private static Node split(Node parent, Node child, int length) {
+        Node middle = new Node(child.label.substring(0, length));
+        middle.maxCount = child.maxCount;
+        middle.maxDoctorCount = child.maxDoctorCount;
+        child.label = child.label.substring(length);
+        middle.children.put(child.label.charAt(0), child);
+        parent.children.put(middle.label.charAt(0), middle);
+        return middle;
+    }
+
+    private static int commonPrefixLength(String a, String b) {
+        int length = 0;
+        while (length < a.length() && length < b.length() && a.charAt(length) == b.charAt(length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private static String normalize(String name) {
+        return name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Node {
+        private String label;
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private Medicine medicine;
+        private long maxCount;
+        private long maxDoctorCount;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final class Medicine {
+        // Spelling of the first prescription seen with this name
+        private final String name;
+        private long count;
+        private final Map<Long, Long> countsByDoctor = new HashMap<>();
+        private final Map<String, Long> dosages = new HashMap<>();
+
+        Medicine(String name) {
+            this.name = name;
+        }
+
+        MedicineSuggestion toSuggestion(Long doctorId) {
+            List<String> commonDosages = dosages.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .limit(DOSAGES_PER_SUGGESTION)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            return new MedicineSuggestion(name, commonDosages, count, countsByDoctor.getOrDefault(doctorId, 0L));
+        }
+    }
+
+    private record Ranked(Node node, Medicine medicine, long rank) {}
+}
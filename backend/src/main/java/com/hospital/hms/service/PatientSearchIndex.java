@@ -0,0 +1,319 @@
+package com.hospital.hms.service;
+
+import com.hospital.hms.dto.PatientMatch;
+import com.hospital.hms.entity.Role;
+import com.hospital.hms.entity.User;
+import com.hospital.hms.event.ChangeType;
+import com.hospital.hms.event.SharedUserChanges;
+import com.hospital.hms.event.UserChangedEvent;
+import com.hospital.hms.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory search over the patients' names, username, email and phone number, kept current from
+ * the user changes every instance reads back from the change feed, so searches never touch the user
+ * table and follow writes made through any instance within app.events.pollMillis.
+ *
+ * Every searchable term is indexed by its trigrams and by its first one and two characters (marked
+ * with a leading '^'). A query word of three or more characters matches anywhere in a term, a
+ * shorter one only at its start. A search walks the shortest posting list among the query's grams
+ * and checks each candidate against all query words, so it costs the size of that list rather than
+ * the number of patients.
+ */
+@Component
+public class PatientSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(PatientSearchIndex.class);
+
+    public static final int MAX_RESULTS = 50;
+
+    private static final char START = '^';
+
+    // Better matches first, then alphabetically by name
+    private static final Comparator<Candidate> RANKING = Comparator.comparingInt(Candidate::score).reversed()
+            .thenComparing(candidate -> candidate.patient().lastName(), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(candidate -> candidate.patient().firstName(), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(candidate -> candidate.patient().id());
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Patients live in numbered slots; posting lists hold slot numbers rather than boxed ids
+    private final Map<Long, Integer> slotsById = new HashMap<>();
+    private final List<PatientMatch> patients = new ArrayList<>();
+    private final List<String[]> terms = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final Map<String, IntList> postings = new HashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        lock.writeLock().lock();
+        try {
+            slotsById.clear();
+            patients.clear();
+            terms.clear();
+            freeSlots.clear();
+            postings.clear();
+            transaction.executeWithoutResult(status -> {
+                try (Stream<PatientMatch> rows = userRepository.streamMatchesByRole(Role.PATIENT)) {
+                    rows.forEach(this::put);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Patient search index built with {} patients and {} grams", slotsById.size(), postings.size());
+    }
+
+    /**
+     * Returns up to limit patients matching every word of the query, best matches first: a word
+     * equal to one of the patient's terms ranks above a prefix of one, which ranks above a match
+     * inside one.
+     */
+    public List<PatientMatch> search(String query, int limit) {
+        if (limit < 1 || limit > MAX_RESULTS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_RESULTS);
+        }
+        List<String> words = query == null ? List.of() : Arrays.stream(query.split("\\s+"))
+                .map(PatientSearchIndex::normalize)
+                .filter(word -> !word.isEmpty())
+                .distinct()
+                .toList();
+        if (words.isEmpty()) {
+            throw new IllegalArgumentException("Search query is required");
+        }
+
+        PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        lock.readLock().lock();
+        try {
+            IntList candidates = shortestPosting(words);
+            for (int i = 0; candidates != null && i < candidates.size(); i++) {
+                int slot = candidates.get(i);
+                int score = score(terms.get(slot), words);
+                if (score > 0) {
+                    best.add(new Candidate(patients.get(slot), score));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return best.stream().sorted(RANKING).map(Candidate::patient).toList();
+    }
+
+    @EventListener
+    public void onSharedUserChanges(SharedUserChanges shared) {
+        // Loaded before taking the lock, with one query for the batch; a patient whose role changed is only removed
+        Set<Long> removed = new LinkedHashSet<>();
+        Set<Long> changed = new LinkedHashSet<>();
+        for (UserChangedEvent change : shared.changes()) {
+            removed.add(change.userId());
+            if (change.type() != ChangeType.DELETED && change.role() == Role.PATIENT) {
+                changed.add(change.userId());
+            } else {
+                changed.remove(change.userId());
+            }
+        }
+        List<PatientMatch> current = changed.isEmpty() ? List.of()
+                : userRepository.findAllById(changed).stream()
+                        .filter(user -> user.getRole() == Role.PATIENT)
+                        .map(PatientSearchIndex::toMatch)
+                        .toList();
+
+        lock.writeLock().lock();
+        try {
+            removed.forEach(this::remove);
+            current.forEach(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns null when one of the grams is in no term, so nothing can match
+    private IntList shortestPosting(List<String> words) {
+        IntList shortest = null;
+        for (String word : words) {
+            for (String gram : queryGrams(word)) {
+                IntList posting = postings.get(gram);
+                if (posting == null) {
+                    return null;
+                }
+                if (shortest == null || posting.size() < shortest.size()) {
+                    shortest = posting;
+                }
+            }
+        }
+        return shortest;
+    }
+
+    // 3 for a whole term, 2 for a prefix, 1 for a match inside a term (three characters or more), summed over the words
+    private static int score(String[] patientTerms, List<String> words) {
+        int total = 0;
+        for (String word : words) {
+            int best = 0;
+            for (String term : patientTerms) {
+                if (term.equals(word)) {
+                    best = 3;
+                    break;
+                } else if (term.startsWith(word)) {
+                    best = Math.max(best, 2);
+                } else if (word.length() >= 3 && term.contains(word)) {
+                    best = Math.max(best, 1);
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private void put(PatientMatch patient) {
+        Integer free = freeSlots.poll();
+        int slot = free != null ? free : patients.size();
+        String[] patientTerms = Stream.of(patient.firstName(), patient.lastName(), patient.username(), patient.email(), patient.phoneNumber())
+                .map(PatientSearchIndex::normalize)
+                .filter(term -> !term.isEmpty())
+                .toArray(String[]::new);
+        if (free != null) {
+            patients.set(slot, patient);
+            terms.set(slot, patientTerms);
+        } else {
+            patients.add(patient);
+            terms.add(patientTerms);
+        }
+        slotsById.put(patient.id(), slot);
+        for (String gram : termGrams(patientTerms)) {
+            postings.computeIfAbsent(gram, key -> new IntList()).add(slot);
+        }
+    }
+
+    private void remove(Long patientId) {
+        Integer slot = slotsById.remove(patientId);
+        if (slot == null) {
+            return;
+        }
+        for (String gram : termGrams(terms.get(slot))) {
+            IntList posting = postings.get(gram);
+            if (posting != null && posting.remove(slot) && posting.size() == 0) {
+                postings.remove(gram);
+            }
+        }
+        patients.set(slot, null);
+        terms.set(slot, null);
+        freeSlots.push(slot);
+    }
+
+    // Distinct, so a slot appears at most once per posting list
+    private static Set<String> termGrams(String[] patientTerms) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String term : patientTerms) {
+            String marked = START + term;
+            grams.add(marked.substring(0, 2));
+            for (int i = 0; i + 3 <= marked.length(); i++) {
+                grams.add(marked.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+
+    private static List<String> queryGrams(String word) {
+        if (word.length() < 3) {
+            return List.of(START + word);
+        }
+        List<String> grams = new ArrayList<>(word.length() - 2);
+        for (int i = 0; i + 3 <= word.length(); i++) {
+            grams.add(word.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    // Lower case letters and digits, plus the characters that appear in usernames and emails;
+    // phone numbers typed as "555-123 4567" match the stored digits
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(value.length());
+        for (char c : value.toLowerCase(Locale.ROOT).toCharArray()) {
+            if (Character.isLetterOrDigit(c) || c == '@' || c == '.' || c == '_') {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static PatientMatch toMatch(User user) {
+        return new PatientMatch(user.getId(), user.getFirstName(), user.getLastName(), user.getUsername(),
+                user.getEmail(), user.getPhoneNumber());
+    }
+
+    private record Candidate(PatientMatch patient, int score) {}
+
+    /**
+     * Growable list of slot numbers. Order does not matter, so removal moves the last element
+     * into the gap.
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        boolean remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -1,38 +1,137 @@
 package com.hospital.hms.service;
 
+import com.hospital.hms.config.ReplicaRead;
+import com.hospital.hms.dto.BulkPrescriptionRequest;
+import com.hospital.hms.dto.CursorPage;
+import com.hospital.hms.dto.MedicineSuggestion;
+import com.hospital.hms.dto.PageCursor;
+import com.hospital.hms.dto.PrescriptionView;
 import com.hospital.hms.entity.Prescription;
 import com.hospital.hms.entity.User;
+import com.hospital.hms.event.ChangeType;
+import com.hospital.hms.event.PrescriptionChangeBatch;
+import com.hospital.hms.event.PrescriptionChangedEvent;
+import com.hospital.hms.repository.ArchivedPrescriptionRepository;
 import com.hospital.hms.repository.PrescriptionRepository;
 import com.hospital.hms.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed("hms.service")
 public class PrescriptionService {
     
     @Autowired
     private PrescriptionRepository prescriptionRepository;
+
+    @Autowired
+    private ArchivedPrescriptionRepository archivedPrescriptionRepository;
     
     @Autowired
     private UserRepository userRepository;
 
-    public List<Prescription> getAllPrescriptions() {
-        return prescriptionRepository.findAll();
+    @Autowired
+    private BatchWriter batchWriter;
+
+    @Autowired
+    private MedicineIndex medicineIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<PrescriptionView> getAllPrescriptions() {
+        return prescriptionRepository.findAllViews();
+    }
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<PrescriptionView> getRecentPrescriptions(int limit) {
+        return prescriptionRepository.findRecentViews(PageRequest.of(0, limit));
+    }
+
+    public List<MedicineSuggestion> suggestMedicines(Long doctorId, String prefix, int limit) {
+        return medicineIndex.suggest(doctorId, prefix, limit);
     }
 
     public Optional<Prescription> getPrescriptionById(Long id) {
         return prescriptionRepository.findById(id);
     }
 
-    public List<Prescription> getPrescriptionsByPatientId(Long patientId) {
-        return prescriptionRepository.findByPatientIdOrderByPrescribedDateDesc(patientId);
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<PrescriptionView> getPrescriptionsByPatientId(Long patientId) {
+        return prescriptionRepository.findViewsByPatientId(patientId);
     }
 
-    public List<Prescription> getPrescriptionsByDoctorId(Long doctorId) {
-        return prescriptionRepository.findByDoctorIdOrderByPrescribedDateDesc(doctorId);
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<PrescriptionView> getPrescriptionsByDoctorId(Long doctorId) {
+        return prescriptionRepository.findViewsByDoctorId(doctorId);
+    }
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public CursorPage<PrescriptionView> getPrescriptionsPage(String cursor, Integer size) {
+        PageCursor position = PageCursor.decode(cursor, PageCursor.Order.TIMESTAMP);
+        int limit = CursorPage.clampSize(size);
+        return toPage(prescriptionRepository.findPageBefore(
+                position.at(), position.id(), PageRequest.of(0, limit + 1)), limit);
+    }
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public CursorPage<PrescriptionView> getPrescriptionsPageByPatientId(Long patientId, String cursor, Integer size) {
+        PageCursor position = PageCursor.decode(cursor, PageCursor.Order.TIMESTAMP);
+        int limit = CursorPage.clampSize(size);
+        return toPage(prescriptionRepository.findPageByPatientIdBefore(
+                patientId, position.at(), position.id(), PageRequest.of(0, limit + 1)), limit);
+    }
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public CursorPage<PrescriptionView> getPrescriptionsPageByDoctorId(Long doctorId, String cursor, Integer size) {
+        PageCursor position = PageCursor.decode(cursor, PageCursor.Order.TIMESTAMP);
+        int limit = CursorPage.clampSize(size);
+        return toPage(prescriptionRepository.findPageByDoctorIdBefore(
+                doctorId, position.at(), position.id(), PageRequest.of(0, limit + 1)), limit);
+    }
+
+    // Archived history is only read when asked for, so the current lists never touch the archive table
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public CursorPage<PrescriptionView> getArchivedPrescriptionsPageByPatientId(Long patientId, String cursor, Integer size) {
+        PageCursor position = PageCursor.decode(cursor, PageCursor.Order.TIMESTAMP);
+        int limit = CursorPage.clampSize(size);
+        return toPage(archivedPrescriptionRepository.findPageByPatientIdBefore(
+                patientId, position.at(), position.id(), PageRequest.of(0, limit + 1)), limit);
+    }
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public CursorPage<PrescriptionView> getArchivedPrescriptionsPageByDoctorId(Long doctorId, String cursor, Integer size) {
+        PageCursor position = PageCursor.decode(cursor, PageCursor.Order.TIMESTAMP);
+        int limit = CursorPage.clampSize(size);
+        return toPage(archivedPrescriptionRepository.findPageByDoctorIdBefore(
+                doctorId, position.at(), position.id(), PageRequest.of(0, limit + 1)), limit);
+    }
+
+    private CursorPage<PrescriptionView> toPage(List<PrescriptionView> rows, int limit) {
+        return CursorPage.of(rows, limit, p -> PageCursor.byTimestamp(p.prescribedDate(), p.id()));
     }
 
     public Prescription createPrescription(Long patientId, Long doctorId, String medicineName, 
@@ -43,8 +142,42 @@ public class PrescriptionService {
         User doctor = userRepository.findById(doctorId)
                 .orElseThrow(() -> new RuntimeException("Doctor not found with id: " + doctorId));
 
-        Prescription prescription = new Prescription(patient, doctor, medicineName, dosage, instructions, duration);
-        return prescriptionRepository.save(prescription);
+        Prescription prescription = prescriptionRepository.save(
+                new Prescription(patient, doctor, medicineName, dosage, instructions, duration));
+        eventPublisher.publishEvent(PrescriptionChangedEvent.of(ChangeType.CREATED, prescription));
+        return prescription;
+    }
+
+    /**
+     * Creates every entry or none, inserting the rows in JDBC batches.
+     */
+    public List<Prescription> createPrescriptions(List<BulkPrescriptionRequest.Entry> entries) {
+        Map<Long, User> users = new HashMap<>();
+        userRepository.findAllById(entries.stream()
+                .flatMap(entry -> Stream.of(entry.getPatientId(), entry.getDoctorId()))
+                .collect(Collectors.toSet()))
+                .forEach(user -> users.put(user.getId(), user));
+
+        List<Prescription> prescriptions = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            BulkPrescriptionRequest.Entry entry = entries.get(i);
+            User patient = users.get(entry.getPatientId());
+            if (patient == null) {
+                throw new IllegalArgumentException("Entry " + i + ": Patient not found with id: " + entry.getPatientId());
+            }
+            User doctor = users.get(entry.getDoctorId());
+            if (doctor == null) {
+                throw new IllegalArgumentException("Entry " + i + ": Doctor not found with id: " + entry.getDoctorId());
+            }
+            prescriptions.add(new Prescription(patient, doctor, entry.getMedicineName(), entry.getDosage(),
+                    entry.getInstructions(), entry.getDuration()));
+        }
+
+        List<Prescription> saved = batchWriter.persistAll(prescriptions);
+        eventPublisher.publishEvent(new PrescriptionChangeBatch(saved.stream()
+                .map(prescription -> PrescriptionChangedEvent.of(ChangeType.CREATED, prescription))
+                .toList()));
+        return saved;
     }
 
     public Prescription updatePrescription(Long id, String medicineName, String dosage, String instructions, Integer duration) {
@@ -56,12 +189,15 @@ public class PrescriptionService {
         prescription.setInstructions(instructions);
         prescription.setDuration(duration);
         
-        return prescriptionRepository.save(prescription);
+        Prescription saved = prescriptionRepository.save(prescription);
+        eventPublisher.publishEvent(PrescriptionChangedEvent.of(ChangeType.UPDATED, saved));
+        return saved;
     }
 
     public void deletePrescription(Long id) {
         Prescription prescription = prescriptionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Prescription not found with id: " + id));
         prescriptionRepository.delete(prescription);
+        eventPublisher.publishEvent(PrescriptionChangedEvent.of(ChangeType.DELETED, prescription));
     }
 }
\ No newline at end of file
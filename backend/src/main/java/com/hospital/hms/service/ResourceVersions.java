@@ -0,0 +1,266 @@
+package com.hospital.hms.service;
+
+import com.hospital.hms.entity.AppointmentStatus;
+import com.hospital.hms.entity.Role;
+import com.hospital.hms.event.AppointmentChangeBatch;
+import com.hospital.hms.event.AppointmentChangedEvent;
+import com.hospital.hms.event.ChangeType;
+import com.hospital.hms.event.PrescriptionChangeBatch;
+import com.hospital.hms.event.PrescriptionChangedEvent;
+import com.hospital.hms.event.UserChangeBatch;
+import com.hospital.hms.event.UserChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-version counters behind the ETags of read-heavy endpoints. Each scope is bumped by the
+ * service change events that can alter what it lists, so a tag is one primary-key read instead of
+ * loading the data. The counters live in the resource_versions table, so every instance builds the
+ * same tag for the same data and a write on one instance changes the tags served by all of them.
+ *
+ * The table also holds the row counts behind the admin dashboard under count: scopes. The statement
+ * that bumps the versions for a change also adds or subtracts its rows, so the counts always match
+ * the versions read with them and the dashboard never counts the tables.
+ *
+ * The counters are bumped after the write has committed, so a failed bump is logged rather than
+ * thrown at the writer. Its changes are applied with the next bump, or by the retry a second later.
+ */
+@Component
+public class ResourceVersions {
+    private static final Logger logger = LoggerFactory.getLogger(ResourceVersions.class);
+
+    public static final String ALL_APPOINTMENTS = "appointments";
+    public static final String ALL_PRESCRIPTIONS = "prescriptions";
+    public static final String ALL_USERS = "users";
+
+    // Bumped when a user is updated or deleted: names appear in other users' lists and deletes cascade
+    private static final String EPOCH = "epoch";
+
+    private static final String TABLE = "resource_versions";
+    private static final int BUMP_ATTEMPTS = 3;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Changes of the bumps that failed, by scope
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    public static String role(Role role) {
+        return "role:" + role;
+    }
+
+    // Appointments and prescriptions in which the user takes part, as doctor or patient
+    public static String user(Long userId) {
+        return "user:" + userId;
+    }
+
+    public static String userCount(Role role) {
+        return "count:users:" + role;
+    }
+
+    public static String appointmentCount(AppointmentStatus status) {
+        return "count:appointments:" + status;
+    }
+
+    public static final String PRESCRIPTION_COUNT = "count:prescriptions";
+
+    /**
+     * Returns a strong ETag for a response built only from the given scopes. Read it in the same
+     * transaction as the data, and before it, so the tag is never newer than what it describes.
+     */
+    public String etag(String... scopes) {
+        Map<String, Long> current = read(scopes);
+        StringBuilder tag = new StringBuilder("\"").append(current.getOrDefault(EPOCH, 0L));
+        for (String scope : scopes) {
+            tag.append('-').append(current.getOrDefault(scope, 0L));
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Same as {@link #etag(String...)} but also changes every minute, for responses that
+     * compare against the current time.
+     */
+    public String etagPerMinute(String... scopes) {
+        String tag = etag(scopes);
+        long minute = TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+        return tag.substring(0, tag.length() - 1) + "-m" + Long.toString(minute, 36) + '"';
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        onUserChanges(List.of(event));
+    }
+
+    @EventListener
+    public void onUserChangeBatch(UserChangeBatch batch) {
+        onUserChanges(batch.changes());
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        onAppointmentChanges(List.of(event));
+    }
+
+    @EventListener
+    public void onAppointmentChangeBatch(AppointmentChangeBatch batch) {
+        onAppointmentChanges(batch.changes());
+    }
+
+    @EventListener
+    public void onPrescriptionChanged(PrescriptionChangedEvent event) {
+        onPrescriptionChanges(List.of(event));
+    }
+
+    @EventListener
+    public void onPrescriptionChangeBatch(PrescriptionChangeBatch batch) {
+        onPrescriptionChanges(batch.changes());
+    }
+
+    private void onUserChanges(List<UserChangedEvent> changes) {
+        Map<String, Long> deltas = new HashMap<>();
+        deltas.put(ALL_USERS, 1L);
+        for (UserChangedEvent change : changes) {
+            deltas.put(role(change.role()), 1L);
+            if (change.type() != ChangeType.CREATED) {
+                deltas.put(EPOCH, 1L);
+            }
+            // A user's role never changes
+            if (change.type() == ChangeType.CREATED) {
+                deltas.merge(userCount(change.role()), 1L, Long::sum);
+            } else if (change.type() == ChangeType.DELETED) {
+                deltas.merge(userCount(change.role()), -1L, Long::sum);
+            }
+        }
+        bump(deltas);
+    }
+
+    private void onAppointmentChanges(List<AppointmentChangedEvent> changes) {
+        Map<String, Long> deltas = new HashMap<>();
+        deltas.put(ALL_APPOINTMENTS, 1L);
+        for (AppointmentChangedEvent change : changes) {
+            deltas.put(user(change.doctorId()), 1L);
+            deltas.put(user(change.patientId()), 1L);
+            if (change.type() == ChangeType.CREATED) {
+                deltas.merge(appointmentCount(change.status()), 1L, Long::sum);
+            } else if (change.type() == ChangeType.DELETED || change.type() == ChangeType.ARCHIVED) {
+                deltas.merge(appointmentCount(change.status()), -1L, Long::sum);
+            } else if (change.previousStatus() != change.status()) {
+                deltas.merge(appointmentCount(change.previousStatus()), -1L, Long::sum);
+                deltas.merge(appointmentCount(change.status()), 1L, Long::sum);
+            }
+        }
+        bump(deltas);
+    }
+
+    private void onPrescriptionChanges(List<PrescriptionChangedEvent> changes) {
+        Map<String, Long> deltas = new HashMap<>();
+        deltas.put(ALL_PRESCRIPTIONS, 1L);
+        for (PrescriptionChangedEvent change : changes) {
+            deltas.put(user(change.doctorId()), 1L);
+            deltas.put(user(change.patientId()), 1L);
+            if (change.type() == ChangeType.CREATED) {
+                deltas.merge(PRESCRIPTION_COUNT, 1L, Long::sum);
+            } else if (change.type() == ChangeType.DELETED || change.type() == ChangeType.ARCHIVED) {
+                deltas.merge(PRESCRIPTION_COUNT, -1L, Long::sum);
+            }
+        }
+        bump(deltas);
+    }
+
+    // Applies the changes of failed bumps when no other bump comes along to carry them
+    @Scheduled(fixedDelay = 1000)
+    public void retryPending() {
+        if (!pending.isEmpty()) {
+            bump(Map.of());
+        }
+    }
+
+    /**
+     * Returns every row count kept under a count: scope, read with the same snapshot rules as the
+     * tags: read both in one transaction and they describe the same writes.
+     */
+    public Map<String, Long> counts() {
+        Map<String, Long> counts = new HashMap<>();
+        jdbcTemplate.query("SELECT scope, version FROM " + TABLE + " WHERE scope LIKE 'count:%'",
+                row -> { counts.put(row.getString(1), row.getLong(2)); });
+        return counts;
+    }
+
+    // Versions of the scopes and the epoch; scopes never written are missing
+    private Map<String, Long> read(String... scopes) {
+        Set<String> keys = new TreeSet<>();
+        Collections.addAll(keys, scopes);
+        keys.add(EPOCH);
+        Map<String, Long> versions = new HashMap<>();
+        jdbcTemplate.query("SELECT scope, version FROM " + TABLE + " WHERE scope IN (" + placeholders(keys.size()) + ")",
+                row -> { versions.put(row.getString(1), row.getLong(2)); }, keys.toArray());
+        return versions;
+    }
+
+    // One statement per event or batch, adding each scope's delta; rows in key order so concurrent bumps cannot deadlock each other
+    private void bump(Map<String, Long> deltas) {
+        Map<String, Long> changes = new TreeMap<>(deltas);
+        for (String scope : pending.keySet()) {
+            Long delta = pending.remove(scope);
+            if (delta != null) {
+                changes.merge(scope, delta, Long::sum);
+            }
+        }
+        changes.values().removeIf(delta -> delta == 0);
+        if (changes.isEmpty()) {
+            return;
+        }
+        Object[] args = new Object[changes.size() * 2];
+        int i = 0;
+        for (Map.Entry<String, Long> change : changes.entrySet()) {
+            args[i++] = change.getKey();
+            args[i++] = change.getValue();
+        }
+        String sql = "INSERT INTO " + TABLE + " (scope, version) VALUES " + String.join(", ", Collections.nCopies(changes.size(), "(?, ?)")) +
+                " ON DUPLICATE KEY UPDATE version = version + VALUES(version)";
+        for (int attempt = 1; ; attempt++) {
+            try {
+                jdbcTemplate.update(sql, args);
+                return;
+            } catch (TransientDataAccessException e) {
+                // Rolled back, so trying again cannot apply the changes twice
+                if (attempt == BUMP_ATTEMPTS) {
+                    failed(changes, e);
+                    return;
+                }
+                logger.debug("Retrying version bump of {} after {}", changes.keySet(), e.toString());
+            } catch (DataAccessException e) {
+                failed(changes, e);
+                return;
+            }
+        }
+    }
+
+    // The write itself is committed; until the scopes are bumped, clients holding their old tags may be told nothing changed
+    private void failed(Map<String, Long> changes, DataAccessException e) {
+        changes.forEach((scope, delta) -> pending.merge(scope, delta, Long::sum));
+        logger.error("Cannot bump the versions of {} scopes; retrying with the next bump", changes.size(), e);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.hospital.hms.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Database leases for background jobs, so that with several instances behind a load balancer each
+ * job runs on one of them at a time. The holder renews its lease on every run; when an instance
+ * dies its lease runs out and another instance takes over. Expiry is computed and compared with the
+ * database's clock, so skew between the instances' clocks cannot let two of them hold a lease.
+ */
+@Component
+public class SchedulerLeases {
+    private static final String TABLE = "scheduler_leases";
+    // The lease duration in microseconds from now, by the database's clock
+    private static final String EXPIRES_AT = "TIMESTAMPADD(MICROSECOND, ?, NOW(6))";
+
+    // Unique per running instance, readable in the table when diagnosing who holds a lease
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Takes or renews the lease for the given duration. Returns false while another instance holds it.
+     */
+    public boolean tryAcquire(String name, Duration duration) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(duration.toNanos());
+        int updated = jdbcTemplate.update("UPDATE " + TABLE + " SET owner = ?, expires_at = " + EXPIRES_AT +
+                " WHERE name = ? AND (owner = ? OR expires_at < NOW(6))", owner, micros, name, owner);
+        if (updated > 0) {
+            return true;
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO " + TABLE + " (name, owner, expires_at) VALUES (?, ?, " + EXPIRES_AT + ")",
+                    name, owner, micros);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // Held by another instance
+            return false;
+        }
+    }
+}
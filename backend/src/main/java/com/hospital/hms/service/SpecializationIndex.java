@@ -0,0 +1,98 @@
+package com.hospital.hms.service;
+
+import com.hospital.hms.dto.UserSummary;
+import com.hospital.hms.entity.Role;
+import com.hospital.hms.entity.User;
+import com.hospital.hms.event.ChangeType;
+import com.hospital.hms.event.SharedUserChanges;
+import com.hospital.hms.event.UserChangedEvent;
+import com.hospital.hms.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Doctors grouped by specialization (compared case-insensitively), kept current from the user
+ * changes every instance reads back from the change feed, so searches never scan the user table
+ * and follow writes made through any instance within app.events.pollMillis.
+ */
+@Component
+public class SpecializationIndex {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Map<String, Set<Long>> doctorsBySpecialization = new ConcurrentHashMap<>();
+    private final Map<Long, UserSummary> doctorsById = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        doctorsBySpecialization.clear();
+        doctorsById.clear();
+        userRepository.findByRole(Role.DOCTOR).forEach(this::put);
+    }
+
+    /**
+     * Returns the doctors with the given specialization.
+     */
+    public List<UserSummary> getDoctors(String specialization) {
+        Set<Long> ids = doctorsBySpecialization.get(normalize(specialization));
+        if (ids == null) {
+            return List.of();
+        }
+        return ids.stream().map(doctorsById::get).filter(Objects::nonNull).toList();
+    }
+
+    // Only called from the change feed's thread, so changes are applied one batch at a time
+    @EventListener
+    public void onSharedUserChanges(SharedUserChanges shared) {
+        Set<Long> changed = new LinkedHashSet<>();
+        for (UserChangedEvent change : shared.changes()) {
+            if (change.role() != Role.DOCTOR) {
+                continue;
+            }
+            remove(change.userId());
+            if (change.type() == ChangeType.DELETED) {
+                changed.remove(change.userId());
+            } else {
+                changed.add(change.userId());
+            }
+        }
+        if (!changed.isEmpty()) {
+            // A query rather than id lookups, so the rows are current even where the entity cache is not yet
+            userRepository.findAllById(changed).forEach(this::put);
+        }
+    }
+
+    private void put(User doctor) {
+        UserSummary summary = new UserSummary(doctor.getId(), doctor.getFirstName(), doctor.getLastName(), doctor.getSpecialization());
+        doctorsById.put(doctor.getId(), summary);
+        if (doctor.getSpecialization() != null && !doctor.getSpecialization().isBlank()) {
+            doctorsBySpecialization.computeIfAbsent(normalize(doctor.getSpecialization()), key -> ConcurrentHashMap.newKeySet())
+                    .add(doctor.getId());
+        }
+    }
+
+    private void remove(Long doctorId) {
+        UserSummary previous = doctorsById.remove(doctorId);
+        if (previous != null && previous.specialization() != null) {
+            Set<Long> ids = doctorsBySpecialization.get(normalize(previous.specialization()));
+            if (ids != null) {
+                ids.remove(doctorId);
+            }
+        }
+    }
+
+    private static String normalize(String specialization) {
+        return specialization.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,52 @@
+package com.hospital.hms.service;
+
+import com.hospital.hms.entity.User;
+import com.hospital.hms.event.SharedUserChanges;
+import com.hospital.hms.event.UserChangeBatch;
+import com.hospital.hms.event.UserChangedEvent;
+import com.hospital.hms.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Drops second-level cache entries for a user once it is created, updated or deleted.
+ * Hibernate already invalidates on its own writes; evicting here as well keeps the
+ * doctor and patient directories correct when rows change outside the session.
+ *
+ * The caches are per instance, so entries are also evicted for the user changes every instance
+ * reads back from the change feed, within app.events.pollMillis of a write made anywhere. The
+ * region expiry in application.conf only bounds how stale an entry gets if a change never reaches
+ * the feed.
+ */
+@Component
+public class UserCacheInvalidator {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        evict(List.of(event));
+    }
+
+    @EventListener
+    public void onUserChangeBatch(UserChangeBatch batch) {
+        evict(batch.changes());
+    }
+
+    @EventListener
+    public void onSharedUserChanges(SharedUserChanges shared) {
+        evict(shared.changes());
+    }
+
+    private void evict(List<UserChangedEvent> changes) {
+        org.hibernate.Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        changes.forEach(change -> cache.evictEntityData(User.class, change.userId()));
+        cache.evictQueryRegion(UserRepository.DIRECTORY_CACHE_REGION);
+    }
+}
@@ -1,16 +1,35 @@
 package com.hospital.hms.service;
 
+import com.hospital.hms.config.ReplicaRead;
+import com.hospital.hms.dto.CursorPage;
+import com.hospital.hms.dto.PageCursor;
+import com.hospital.hms.dto.PatientMatch;
 import com.hospital.hms.entity.User;
 import com.hospital.hms.entity.Role;
+import com.hospital.hms.event.AppointmentChangeBatch;
+import com.hospital.hms.event.AppointmentChangedEvent;
+import com.hospital.hms.event.ChangeType;
+import com.hospital.hms.event.PrescriptionChangeBatch;
+import com.hospital.hms.event.PrescriptionChangedEvent;
+import com.hospital.hms.event.UserChangedEvent;
 import com.hospital.hms.repository.UserRepository;
+import com.hospital.hms.security.PrincipalInvalidationRegistry;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
+@Timed("hms.service")
 public class UserService {
     
     @Autowired
@@ -19,6 +38,23 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private AppointmentScheduleIndex scheduleIndex;
+
+    @Autowired
+    private PatientSearchIndex patientSearchIndex;
+
+    @Autowired
+    private PrincipalInvalidationRegistry invalidationRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
@@ -35,49 +71,115 @@ public class UserService {
         return userRepository.findByEmail(email);
     }
 
+    @ReplicaRead
+    @Transactional(readOnly = true)
     public List<User> getUsersByRole(Role role) {
         return userRepository.findByRole(role);
     }
 
+    @ReplicaRead
+    @Transactional(readOnly = true)
     public List<User> getDoctors() {
         return userRepository.findByRole(Role.DOCTOR);
     }
 
+    @ReplicaRead
+    @Transactional(readOnly = true)
     public List<User> getPatients() {
         return userRepository.findByRole(Role.PATIENT);
     }
 
+    public List<PatientMatch> searchPatients(String query, int limit) {
+        return patientSearchIndex.search(query, limit);
+    }
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public CursorPage<User> getUsersPage(String cursor, Integer size) {
+        PageCursor position = PageCursor.decode(cursor, PageCursor.Order.ID);
+        int limit = CursorPage.clampSize(size);
+        return toPage(userRepository.findPageAfter(position.id(), PageRequest.of(0, limit + 1)), limit);
+    }
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public CursorPage<User> getUsersPageByRole(Role role, String cursor, Integer size) {
+        PageCursor position = PageCursor.decode(cursor, PageCursor.Order.ID);
+        int limit = CursorPage.clampSize(size);
+        return toPage(userRepository.findPageByRoleAfter(role, position.id(), PageRequest.of(0, limit + 1)), limit);
+    }
+
+    private CursorPage<User> toPage(List<User> rows, int limit) {
+        return CursorPage.of(rows, limit, u -> PageCursor.byId(u.getId()));
+    }
+
     public User createUser(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(ChangeType.CREATED, saved.getId(), saved.getRole()));
+        return saved;
     }
 
     public User updateUser(Long id, User userDetails) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
-
-        user.setFirstName(userDetails.getFirstName());
-        user.setLastName(userDetails.getLastName());
-        user.setEmail(userDetails.getEmail());
-        user.setPhoneNumber(userDetails.getPhoneNumber());
-        
-        if (user.getRole() == Role.DOCTOR) {
-            user.setSpecialization(userDetails.getSpecialization());
-            user.setLicenseNumber(userDetails.getLicenseNumber());
-        } else if (user.getRole() == Role.PATIENT) {
-            user.setAddress(userDetails.getAddress());
-            user.setEmergencyContact(userDetails.getEmergencyContact());
-        }
-
-        return userRepository.save(user);
+        User saved = new TransactionTemplate(transactionManager).execute(tx -> {
+            User user = userRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+
+            user.setFirstName(userDetails.getFirstName());
+            user.setLastName(userDetails.getLastName());
+            user.setEmail(userDetails.getEmail());
+            user.setPhoneNumber(userDetails.getPhoneNumber());
+
+            if (user.getRole() == Role.DOCTOR) {
+                user.setSpecialization(userDetails.getSpecialization());
+                user.setLicenseNumber(userDetails.getLicenseNumber());
+            } else if (user.getRole() == Role.PATIENT) {
+                user.setAddress(userDetails.getAddress());
+                user.setEmergencyContact(userDetails.getEmergencyContact());
+            }
+
+            // Committed with the change, so no instance trusts the old details embedded in tokens
+            invalidationRegistry.invalidate(id);
+            return userRepository.save(user);
+        });
+        eventPublisher.publishEvent(new UserChangedEvent(ChangeType.UPDATED, saved.getId(), saved.getRole()));
+        return saved;
     }
 
+    /**
+     * Deletes the user together with their appointments and prescriptions, and publishes those as
+     * deleted too, so the dashboard counts and the recipients' streams follow the cascade.
+     */
     public void deleteUser(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
-        userRepository.delete(user);
+        Deleted deleted = new TransactionTemplate(transactionManager).execute(tx -> {
+            User existing = userRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+            // Loaded for the cascade anyway
+            List<AppointmentChangedEvent> appointments = Stream.concat(
+                            existing.getDoctorAppointments().stream(), existing.getPatientAppointments().stream())
+                    .map(appointment -> AppointmentChangedEvent.of(ChangeType.DELETED, appointment, appointment.getStatus()))
+                    .toList();
+            List<PrescriptionChangedEvent> prescriptions = Stream.concat(
+                            existing.getDoctorPrescriptions().stream(), existing.getPatientPrescriptions().stream())
+                    .map(prescription -> PrescriptionChangedEvent.of(ChangeType.DELETED, prescription))
+                    .toList();
+            invalidationRegistry.invalidate(id);
+            userRepository.delete(existing);
+            return new Deleted(existing.getRole(), appointments, prescriptions);
+        });
+        // Appointments cascade with the user, so drop them from the schedule index too
+        scheduleIndex.removeUser(id);
+        eventPublisher.publishEvent(new UserChangedEvent(ChangeType.DELETED, id, deleted.role()));
+        if (!deleted.appointments().isEmpty()) {
+            eventPublisher.publishEvent(new AppointmentChangeBatch(deleted.appointments()));
+        }
+        if (!deleted.prescriptions().isEmpty()) {
+            eventPublisher.publishEvent(new PrescriptionChangeBatch(deleted.prescriptions()));
+        }
     }
 
+    private record Deleted(Role role, List<AppointmentChangedEvent> appointments, List<PrescriptionChangedEvent> prescriptions) {}
+
     public boolean existsByUsername(String username) {
         return userRepository.existsByUsername(username);
     }
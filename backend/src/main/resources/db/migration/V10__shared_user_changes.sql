@@ -0,0 +1,4 @@
+-- User changes go through change_notifications too, so every instance's in-memory indexes follow
+-- them. They are not pushed to any stream and have no doctor or patient.
+ALTER TABLE change_notifications MODIFY doctor_id BIGINT NULL;
+ALTER TABLE change_notifications MODIFY patient_id BIGINT NULL;
@@ -0,0 +1,9 @@
+-- When each user was last updated or deleted, by the database's UTC clock. Tokens embedding the
+-- user's details and issued before that are not trusted on any instance. Rows are pruned once
+-- every token issued before them has expired.
+CREATE TABLE principal_invalidations (
+    user_id BIGINT NOT NULL PRIMARY KEY,
+    invalidated_at DATETIME(6) NOT NULL
+);
+
+CREATE INDEX idx_principal_invalidations_invalidated_at ON principal_invalidations (invalidated_at);
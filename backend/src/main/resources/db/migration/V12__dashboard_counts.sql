@@ -0,0 +1,11 @@
+-- Row counts behind the admin dashboard, kept in resource_versions under count: scopes so the
+-- statement that bumps the ETag versions for a write also applies the write to the counts.
+-- Seeded here from the tables; from then on every change event adds or subtracts its rows.
+INSERT INTO resource_versions (scope, version)
+SELECT CONCAT('count:users:', role), COUNT(*) FROM users GROUP BY role;
+
+INSERT INTO resource_versions (scope, version)
+SELECT CONCAT('count:appointments:', status), COUNT(*) FROM appointments WHERE status IS NOT NULL GROUP BY status;
+
+INSERT INTO resource_versions (scope, version)
+SELECT 'count:prescriptions', COUNT(*) FROM prescriptions;
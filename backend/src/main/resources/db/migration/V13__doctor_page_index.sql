@@ -0,0 +1,5 @@
+-- A doctor's appointment pages sort on (appointment_datetime, id). In
+-- idx_appointments_doctor_datetime_status the status sits between the two, so a page read from it
+-- needs a filesort and MySQL walks the whole date index instead. InnoDB appends the primary key to
+-- this index, so a doctor's rows come back in page order.
+CREATE INDEX idx_appointments_doctor_datetime ON appointments (doctor_id, appointment_datetime);
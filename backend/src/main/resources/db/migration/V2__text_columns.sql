@@ -0,0 +1,6 @@
+-- Hibernate's ddl-auto=update created the free-text columns as VARCHAR(255); database_setup.sql
+-- made them TEXT, which the entities map. Already TEXT columns are left as they are.
+
+ALTER TABLE users MODIFY address TEXT;
+ALTER TABLE appointments MODIFY reason TEXT, MODIFY notes TEXT;
+ALTER TABLE prescriptions MODIFY instructions TEXT NOT NULL;
@@ -0,0 +1,7 @@
+-- Id blocks for the pooled table generator (see IdSequences). Rows are created and moved past
+-- the existing ids by IdSequenceAligner at startup.
+
+CREATE TABLE id_sequences (
+    sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,
+    next_val BIGINT
+);
@@ -0,0 +1,2 @@
+-- Imported accounts are created without a usable password
+ALTER TABLE users ADD COLUMN password_reset_required BIT NOT NULL DEFAULT 0;
@@ -0,0 +1,9 @@
+-- Lets one instance at a time run each background job
+CREATE TABLE scheduler_leases (
+    name VARCHAR(64) NOT NULL PRIMARY KEY,
+    owner VARCHAR(128) NOT NULL,
+    expires_at DATETIME(6) NOT NULL
+);
+
+-- The no-show sweep range-scans overdue appointments by status
+CREATE INDEX idx_appointments_status_datetime ON appointments (status, appointment_datetime);
@@ -0,0 +1,42 @@
+-- Closed appointments and finished prescriptions moved out of the hot tables by the archiver.
+-- Columns match the live tables so rows can be copied with INSERT ... SELECT.
+
+CREATE TABLE appointments_archive (
+    id BIGINT NOT NULL PRIMARY KEY,
+    patient_id BIGINT NOT NULL,
+    doctor_id BIGINT NOT NULL,
+    appointment_datetime DATETIME NOT NULL,
+    status ENUM('SCHEDULED', 'CONFIRMED', 'COMPLETED', 'CANCELLED', 'NO_SHOW'),
+    reason TEXT,
+    notes TEXT,
+    created_at DATETIME,
+    updated_at DATETIME,
+    archived_at DATETIME NOT NULL,
+    FOREIGN KEY (patient_id) REFERENCES users(id) ON DELETE CASCADE,
+    FOREIGN KEY (doctor_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_appointments_archive_patient ON appointments_archive (patient_id, appointment_datetime);
+CREATE INDEX idx_appointments_archive_doctor ON appointments_archive (doctor_id, appointment_datetime);
+
+CREATE TABLE prescriptions_archive (
+    id BIGINT NOT NULL PRIMARY KEY,
+    patient_id BIGINT NOT NULL,
+    doctor_id BIGINT NOT NULL,
+    medicine_name VARCHAR(255) NOT NULL,
+    dosage VARCHAR(255) NOT NULL,
+    instructions TEXT NOT NULL,
+    duration INT,
+    prescribed_date DATETIME,
+    created_at DATETIME,
+    updated_at DATETIME,
+    archived_at DATETIME NOT NULL,
+    FOREIGN KEY (patient_id) REFERENCES users(id) ON DELETE CASCADE,
+    FOREIGN KEY (doctor_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_prescriptions_archive_patient ON prescriptions_archive (patient_id, prescribed_date);
+CREATE INDEX idx_prescriptions_archive_doctor ON prescriptions_archive (doctor_id, prescribed_date);
+
+-- The archiver selects finished prescriptions by date
+CREATE INDEX idx_prescriptions_prescribed_date ON prescriptions (prescribed_date);
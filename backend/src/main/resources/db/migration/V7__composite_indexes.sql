@@ -0,0 +1,15 @@
+-- Per-user lists filter on the user and sort or range on the date, so both go in one index and
+-- the rows come back in order without a filesort.
+
+-- Doctor schedules, conflict checks and bulk transitions by doctor and day
+CREATE INDEX idx_appointments_doctor_datetime_status ON appointments (doctor_id, appointment_datetime, status);
+-- Patient appointment lists
+CREATE INDEX idx_appointments_patient_datetime ON appointments (patient_id, appointment_datetime);
+-- Schedule index rebuild from a start date and the admin list's keyset paging
+CREATE INDEX idx_appointments_datetime_id ON appointments (appointment_datetime, id);
+
+CREATE INDEX idx_prescriptions_patient_date ON prescriptions (patient_id, prescribed_date);
+CREATE INDEX idx_prescriptions_doctor_date ON prescriptions (doctor_id, prescribed_date);
+
+-- Doctor and patient directories and their keyset paging
+CREATE INDEX idx_users_role_id ON users (role, id);
@@ -0,0 +1,5 @@
+-- Change counters behind the ETags of read-heavy endpoints, shared by every instance
+CREATE TABLE resource_versions (
+    scope VARCHAR(64) NOT NULL PRIMARY KEY,
+    version BIGINT NOT NULL
+);
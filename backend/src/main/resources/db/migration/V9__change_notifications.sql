@@ -0,0 +1,13 @@
+-- Appointment and prescription changes on their way to the Server-Sent Event streams. Every
+-- instance polls the table, so a change reaches the recipients' streams whichever instance holds
+-- them. Rows are only kept for a few minutes.
+CREATE TABLE change_notifications (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(32) NOT NULL,
+    doctor_id BIGINT NOT NULL,
+    patient_id BIGINT NOT NULL,
+    payload TEXT NOT NULL,
+    created_at DATETIME(6) NOT NULL
+);
+
+CREATE INDEX idx_change_notifications_created_at ON change_notifications (created_at);
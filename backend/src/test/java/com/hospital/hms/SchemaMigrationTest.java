@@ -0,0 +1,113 @@
+package com.hospital.hms;
+
+import com.hospital.hms.entity.Appointment;
+import com.hospital.hms.entity.User;
+import com.hospital.hms.repository.AppointmentRepository;
+import com.hospital.hms.repository.UserRepository;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.CoreMigrationType;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts the application (migrations, then Hibernate's schema validation) on an empty database
+ * and on the two kinds of database the first release left behind: tables from database_setup.sql
+ * and tables Hibernate created with ddl-auto=update.
+ */
+@EnabledIf("com.hospital.hms.TestDatabase#isAvailable")
+class SchemaMigrationTest {
+    private static final String SCHEMA = "hms_schema_migration_test";
+
+    @Test
+    void migratesEmptyDatabase() throws SQLException {
+        String url = TestDatabase.recreate(SCHEMA);
+
+        try (ConfigurableApplicationContext context = start(url)) {
+            MigrationInfo[] applied = context.getBean(Flyway.class).info().applied();
+            assertEquals(CoreMigrationType.SQL, applied[0].getType());
+            assertEquals(0, context.getBean(Flyway.class).info().pending().length);
+        }
+    }
+
+    @Test
+    void upgradesDatabaseFromSetupScript() throws SQLException {
+        String url = TestDatabase.recreate(SCHEMA);
+        try (Connection connection = TestDatabase.connect(url)) {
+            // V1 is the setup script's schema
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/V1__baseline.sql"));
+            insertFirstReleaseRows(connection);
+        }
+
+        assertUpgraded(url);
+    }
+
+    @Test
+    void upgradesDatabaseCreatedByHibernate() throws SQLException {
+        String url = TestDatabase.recreate(SCHEMA);
+        try (Connection connection = TestDatabase.connect(url)) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/hibernate-baseline.sql"));
+            insertFirstReleaseRows(connection);
+        }
+
+        assertUpgraded(url);
+    }
+
+    private static void assertUpgraded(String url) {
+        try (ConfigurableApplicationContext context = start(url)) {
+            Flyway flyway = context.getBean(Flyway.class);
+            assertEquals(CoreMigrationType.BASELINE, flyway.info().applied()[0].getType());
+            assertEquals(0, flyway.info().pending().length);
+
+            UserRepository userRepository = context.getBean(UserRepository.class);
+            AppointmentRepository appointmentRepository = context.getBean(AppointmentRepository.class);
+            User patient = userRepository.findByUsername("first.patient").orElseThrow();
+            User doctor = userRepository.findByUsername("first.doctor").orElseThrow();
+            assertEquals("12 Old Road", patient.getAddress());
+            assertEquals("Check-up", appointmentRepository.findById(57L).orElseThrow().getReason());
+
+            // New ids are allocated past the rows written with AUTO_INCREMENT
+            Appointment followUp = appointmentRepository.save(
+                    new Appointment(patient, doctor, LocalDateTime.of(2040, 1, 3, 9, 0), "Follow-up"));
+            assertTrue(followUp.getId() > 57L);
+            assertEquals(1, context.getBean(JdbcTemplate.class).queryForObject(
+                    "SELECT COUNT(*) FROM prescriptions WHERE id = 63", Integer.class));
+        }
+    }
+
+    private static void insertFirstReleaseRows(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users (id, username, email, password, first_name, last_name, phone_number, role, specialization) " +
+                    "VALUES (41, 'first.doctor', 'first.doctor@hospital.com', 'x', 'Ada', 'Lind', '5550000001', 'DOCTOR', 'Cardiology')");
+            statement.execute("INSERT INTO users (id, username, email, password, first_name, last_name, phone_number, role, address) " +
+                    "VALUES (42, 'first.patient', 'first.patient@hospital.com', 'x', 'Ben', 'Moss', '5550000002', 'PATIENT', '12 Old Road')");
+            statement.execute("INSERT INTO appointments (id, patient_id, doctor_id, appointment_datetime, status, reason) " +
+                    "VALUES (57, 42, 41, '2040-01-02 09:00:00', 'SCHEDULED', 'Check-up')");
+            statement.execute("INSERT INTO prescriptions (id, patient_id, doctor_id, medicine_name, dosage, instructions, duration, prescribed_date) " +
+                    "VALUES (63, 42, 41, 'Amoxicillin', '500mg', 'Three times a day', 7, '2040-01-02 09:30:00')");
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String url) {
+        return new SpringApplicationBuilder(HospitalManagementSystemApplication.class)
+                .run("--server.port=0",
+                        "--management.server.port=0",
+                        "--spring.datasource.url=" + url,
+                        "--spring.datasource.username=" + TestDatabase.USERNAME,
+                        "--spring.datasource.password=" + TestDatabase.PASSWORD,
+                        "--spring.jpa.show-sql=false");
+    }
+}
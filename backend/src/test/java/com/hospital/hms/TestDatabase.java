@@ -0,0 +1,44 @@
+package com.hospital.hms;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The MySQL server database tests run against, set with the test.mysql.url, test.mysql.username
+ * and test.mysql.password system properties (the local server from application.properties by
+ * default). Each test class works in its own schema; the tests are skipped when the server cannot
+ * be reached.
+ */
+public final class TestDatabase {
+    public static final String USERNAME = System.getProperty("test.mysql.username", "root");
+    public static final String PASSWORD = System.getProperty("test.mysql.password", "root");
+
+    private static final String SERVER_URL = System.getProperty("test.mysql.url", "jdbc:mysql://localhost:3306/");
+    private static final String OPTIONS = "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC&rewriteBatchedStatements=true";
+
+    private TestDatabase() {}
+
+    public static boolean isAvailable() {
+        try (Connection connection = DriverManager.getConnection(SERVER_URL + OPTIONS + "&connectTimeout=2000", USERNAME, PASSWORD)) {
+            return connection.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Drops and creates the schema, returning its JDBC URL
+    public static String recreate(String schema) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(SERVER_URL + OPTIONS, USERNAME, PASSWORD);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP DATABASE IF EXISTS " + schema);
+            statement.execute("CREATE DATABASE " + schema);
+        }
+        return SERVER_URL + schema + OPTIONS;
+    }
+
+    public static Connection connect(String url) throws SQLException {
+        return DriverManager.getConnection(url, USERNAME, PASSWORD);
+    }
+}
@@ -0,0 +1,68 @@
+package com.hospital.hms.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Encoding and decoding of keyset page cursors, and the check that a cursor belongs to the
+ * listing's order.
+ */
+class PageCursorTest {
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertInvalid(String cursor, PageCursor.Order order, String message) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(cursor, order));
+        assertEquals(message, e.getMessage());
+    }
+
+    @Test
+    void roundTripsBothOrders() {
+        PageCursor byTimestamp = PageCursor.byTimestamp(LocalDateTime.of(2024, 2, 29, 23, 59, 59, 123_456_789), 42L);
+        assertEquals(byTimestamp, PageCursor.decode(byTimestamp.encode(), PageCursor.Order.TIMESTAMP));
+
+        PageCursor byId = PageCursor.byId(Long.MAX_VALUE);
+        assertEquals(byId, PageCursor.decode(byId.encode(), PageCursor.Order.ID));
+    }
+
+    @Test
+    void encodedFormIsSafeInAQueryString() {
+        String encoded = PageCursor.byTimestamp(LocalDateTime.of(2024, 1, 1, 9, 30), 1L).encode();
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+    }
+
+    @Test
+    void missingCursorIsTheFirstPage() {
+        assertEquals(new PageCursor(PageCursor.Order.TIMESTAMP, null, null), PageCursor.decode(null, PageCursor.Order.TIMESTAMP));
+        assertEquals(new PageCursor(PageCursor.Order.ID, null, null), PageCursor.decode("  ", PageCursor.Order.ID));
+    }
+
+    @Test
+    void rejectsACursorFromTheOtherOrder() {
+        String byTimestamp = PageCursor.byTimestamp(LocalDateTime.of(2024, 1, 1, 9, 30), 7L).encode();
+        String byId = PageCursor.byId(7L).encode();
+
+        assertInvalid(byTimestamp, PageCursor.Order.ID, "Invalid page cursor for this listing");
+        assertInvalid(byId, PageCursor.Order.TIMESTAMP, "Invalid page cursor for this listing");
+        // Written before cursors recorded their order
+        assertInvalid(encodeRaw("2024-01-01T09:30|7"), PageCursor.Order.TIMESTAMP, "Invalid page cursor for this listing");
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertInvalid("not base64!", PageCursor.Order.ID, "Invalid page cursor");
+        assertInvalid(encodeRaw("i|"), PageCursor.Order.ID, "Invalid page cursor");
+        assertInvalid(encodeRaw("i7"), PageCursor.Order.ID, "Invalid page cursor");
+        assertInvalid(encodeRaw("i|seven"), PageCursor.Order.ID, "Invalid page cursor");
+        assertInvalid(encodeRaw("t2024-13-01T09:30|7"), PageCursor.Order.TIMESTAMP, "Invalid page cursor");
+    }
+}
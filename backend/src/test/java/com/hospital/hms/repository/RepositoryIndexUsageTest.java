@@ -0,0 +1,390 @@
+package com.hospital.hms.repository;
+
+import com.hospital.hms.TestDatabase;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that every repository query uses an index. The migrated schema is seeded with a few years
+ * of appointments and prescriptions, mostly in the past as in a live database, and analyzed. Each
+ * query method of the repositories is then called once and EXPLAIN is run on the SQL Hibernate sent
+ * (with the same parameters). A query fails when MySQL would scan a table it filters, whether or
+ * not it had an index to choose from, and the hot queries fail unless they use the composite index
+ * made for them; unfiltered queries (full lists and exports) are skipped.
+ */
+@SpringBootTest
+@EnabledIf("com.hospital.hms.TestDatabase#isAvailable")
+class RepositoryIndexUsageTest {
+    private static final String REPOSITORY_PACKAGE = "com.hospital.hms.repository";
+    private static final Pattern WHERE = Pattern.compile("\\bwhere\\b", Pattern.CASE_INSENSITIVE);
+
+    // Seeded rows; ids start at FIRST_ID so they stay clear of the users DataLoader creates
+    private static final long FIRST_ID = 1001;
+    private static final int DOCTORS = 20;
+    private static final int PATIENTS = 2000;
+    private static final int APPOINTMENTS = 40_000;
+    private static final int PRESCRIPTIONS = 10_000;
+    private static final int ARCHIVED = 10_000;
+
+    private static final Set<String> RANGE_ENDS = Set.of("to", "endTime");
+
+    // The id passed for every Long parameter: the first seeded doctor
+    private static final long SAMPLE_ID = FIRST_ID;
+
+    // Indexes each hot query may use, by repository method. InnoDB appends the primary key to every
+    // secondary index, so the first release's single-column indexes are the same as the (column, id)
+    // ones added for paging, and either may be chosen where both exist.
+    private static final Map<String, Set<String>> EXPECTED_KEYS = Map.ofEntries(
+            Map.entry("AppointmentRepository.countBookingsBetween", Set.of("idx_appointments_doctor_datetime_status")),
+            Map.entry("AppointmentRepository.lockTransitionCandidatesByDoctor",
+                    Set.of("idx_appointments_doctor_datetime_status", "idx_appointments_doctor_datetime")),
+            Map.entry("AppointmentRepository.findViewsByDoctorId",
+                    Set.of("idx_appointments_doctor_datetime_status", "idx_appointments_doctor_datetime")),
+            Map.entry("AppointmentRepository.findPageByDoctorIdBefore", Set.of("idx_appointments_doctor_datetime")),
+            Map.entry("AppointmentRepository.findViewsByPatientId", Set.of("idx_appointments_patient_datetime")),
+            Map.entry("AppointmentRepository.findPageByPatientIdBefore", Set.of("idx_appointments_patient_datetime")),
+            Map.entry("AppointmentRepository.findPageBefore", Set.of("idx_appointments_datetime_id", "idx_appointments_datetime")),
+            Map.entry("AppointmentRepository.lockOverdue", Set.of("idx_appointments_status_datetime")),
+            Map.entry("PrescriptionRepository.findViewsByDoctorId", Set.of("idx_prescriptions_doctor_date")),
+            Map.entry("PrescriptionRepository.findPageByDoctorIdBefore", Set.of("idx_prescriptions_doctor_date")),
+            Map.entry("PrescriptionRepository.findViewsByPatientId", Set.of("idx_prescriptions_patient_date")),
+            Map.entry("PrescriptionRepository.findPageByPatientIdBefore", Set.of("idx_prescriptions_patient_date")),
+            Map.entry("PrescriptionRepository.findPageBefore", Set.of("idx_prescriptions_prescribed_date")),
+            Map.entry("ArchivedAppointmentRepository.findPageByDoctorIdBefore", Set.of("idx_appointments_archive_doctor")),
+            Map.entry("ArchivedAppointmentRepository.findPageByPatientIdBefore", Set.of("idx_appointments_archive_patient")),
+            Map.entry("ArchivedPrescriptionRepository.findPageByDoctorIdBefore", Set.of("idx_prescriptions_archive_doctor")),
+            Map.entry("ArchivedPrescriptionRepository.findPageByPatientIdBefore", Set.of("idx_prescriptions_archive_patient")),
+            Map.entry("UserRepository.findPageByRoleAfter", Set.of("idx_users_role_id", "idx_users_role")));
+
+    // Statements executed on the current thread while a query method is being audited
+    private static final ThreadLocal<List<RecordedQuery>> recording = new ThreadLocal<>();
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws SQLException {
+        String url = TestDatabase.recreate("hms_repository_index_test");
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> TestDatabase.USERNAME);
+        registry.add("spring.datasource.password", () -> TestDatabase.PASSWORD);
+    }
+
+    @TestConfiguration
+    static class RecordingDataSourceConfig {
+        @Bean
+        static BeanPostProcessor recordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource target ? recordingDataSource(target) : bean;
+                }
+            };
+        }
+    }
+
+    @Test
+    void everyFilteredQueryUsesAnIndex() throws SQLException {
+        seed();
+        List<String> findings = new ArrayList<>();
+        Set<String> audited = new HashSet<>();
+        for (Object repository : context.getBeansOfType(Repository.class).values()) {
+            for (Class<?> type : ClassUtils.getAllInterfacesAsSet(repository)) {
+                if (!type.getPackageName().equals(REPOSITORY_PACKAGE)) {
+                    continue;
+                }
+                for (Method method : type.getDeclaredMethods()) {
+                    if (method.isDefault() || method.isSynthetic() || method.isAnnotationPresent(Modifying.class)) {
+                        continue;
+                    }
+                    String query = type.getSimpleName() + "." + method.getName();
+                    for (RecordedQuery recorded : execute(repository, method)) {
+                        findings.addAll(explain(query, recorded));
+                    }
+                    audited.add(query);
+                }
+            }
+        }
+
+        assertTrue(audited.containsAll(EXPECTED_KEYS.keySet()), () -> "Expected indexes listed for missing queries: "
+                + EXPECTED_KEYS.keySet().stream().filter(query -> !audited.contains(query)).toList());
+        assertTrue(findings.isEmpty(), () -> findings.size() + " repository queries do not use the right index:\n"
+                + String.join("\n", findings));
+    }
+
+    // Calls the query method in a transaction that is rolled back, so locking queries work too
+    private List<RecordedQuery> execute(Object repository, Method method) {
+        List<RecordedQuery> queries = new ArrayList<>();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            recording.set(queries);
+            try {
+                Object result = ReflectionUtils.invokeMethod(method, repository, sampleArguments(method));
+                if (result instanceof Stream<?> stream) {
+                    try (stream) {
+                        stream.forEach(row -> {});
+                    }
+                }
+            } finally {
+                recording.remove();
+            }
+        });
+        return queries;
+    }
+
+    private List<String> explain(String query, RecordedQuery recorded) throws SQLException {
+        if (!WHERE.matcher(recorded.sql()).find()) {
+            return List.of();
+        }
+        List<String> findings = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + recorded.sql())) {
+            for (Binding binding : recorded.bindings()) {
+                ReflectionUtils.invokeMethod(binding.setter(), explain, binding.args());
+            }
+            List<String> keys = new ArrayList<>();
+            try (ResultSet plan = explain.executeQuery()) {
+                while (plan.next()) {
+                    String table = plan.getString("table");
+                    if ("ALL".equals(plan.getString("type")) && table != null && !table.startsWith("<")) {
+                        findings.add(query + " scans " + table + " (possible keys: " + plan.getString("possible_keys") + "): " + recorded.sql());
+                    }
+                    keys.add(plan.getString("key"));
+                }
+            }
+            Set<String> expected = EXPECTED_KEYS.get(query);
+            if (expected != null && keys.stream().noneMatch(expected::contains)) {
+                findings.add(query + " uses " + keys + " instead of " + expected + ": " + recorded.sql());
+            }
+        }
+        return findings;
+    }
+
+    // Doctors and patients with two years of history and two months ahead, so the optimizer sees real selectivity
+    private void seed() throws SQLException {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        LocalDateTime first = now.minusDays(730);
+        long step = Duration.between(first, now.plusDays(60)).toSeconds() / APPOINTMENTS;
+        long firstPatient = FIRST_ID + DOCTORS;
+
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement users = connection.prepareStatement(
+                    "INSERT INTO users (id, username, email, password, first_name, last_name, role) VALUES (?, ?, ?, 'x', 'First', 'Last', ?)")) {
+                for (int i = 0; i < DOCTORS + PATIENTS; i++) {
+                    users.setLong(1, FIRST_ID + i);
+                    users.setString(2, "seed" + i);
+                    users.setString(3, "seed" + i + "@example.com");
+                    users.setString(4, i < DOCTORS ? "DOCTOR" : "PATIENT");
+                    users.addBatch();
+                }
+                users.executeBatch();
+            }
+            try (PreparedStatement appointments = connection.prepareStatement(
+                    "INSERT INTO appointments (id, doctor_id, patient_id, appointment_datetime, status) VALUES (?, ?, ?, ?, ?)");
+                 PreparedStatement archived = connection.prepareStatement(
+                    "INSERT INTO appointments_archive (id, doctor_id, patient_id, appointment_datetime, status, archived_at) VALUES (?, ?, ?, ?, 'COMPLETED', ?)")) {
+                for (int i = 0; i < APPOINTMENTS; i++) {
+                    LocalDateTime at = first.plusSeconds(step * i);
+                    appointments.setLong(1, FIRST_ID + i);
+                    appointments.setLong(2, FIRST_ID + i % DOCTORS);
+                    appointments.setLong(3, firstPatient + (i * 7L) % PATIENTS);
+                    appointments.setObject(4, at);
+                    appointments.setString(5, at.isAfter(now) ? (i % 2 == 0 ? "SCHEDULED" : "CONFIRMED")
+                            : i % 10 == 0 ? "CANCELLED" : i % 10 == 1 ? "NO_SHOW" : "COMPLETED");
+                    appointments.addBatch();
+                }
+                for (int i = 0; i < ARCHIVED; i++) {
+                    archived.setLong(1, FIRST_ID + APPOINTMENTS + i);
+                    archived.setLong(2, FIRST_ID + i % DOCTORS);
+                    archived.setLong(3, firstPatient + (i * 7L) % PATIENTS);
+                    archived.setObject(4, first.minusDays(365).plusSeconds(step * i));
+                    archived.setObject(5, now);
+                    archived.addBatch();
+                }
+                appointments.executeBatch();
+                archived.executeBatch();
+            }
+            try (PreparedStatement prescriptions = connection.prepareStatement(
+                    "INSERT INTO prescriptions (id, doctor_id, patient_id, medicine_name, dosage, instructions, prescribed_date) VALUES (?, ?, ?, ?, '1 tablet', 'Daily', ?)");
+                 PreparedStatement archived = connection.prepareStatement(
+                    "INSERT INTO prescriptions_archive (id, doctor_id, patient_id, medicine_name, dosage, instructions, prescribed_date, archived_at) VALUES (?, ?, ?, ?, '1 tablet', 'Daily', ?, ?)")) {
+                long prescriptionStep = Duration.between(first, now).toSeconds() / PRESCRIPTIONS;
+                for (int i = 0; i < PRESCRIPTIONS; i++) {
+                    prescriptions.setLong(1, FIRST_ID + i);
+                    prescriptions.setLong(2, FIRST_ID + i % DOCTORS);
+                    prescriptions.setLong(3, firstPatient + (i * 13L) % PATIENTS);
+                    prescriptions.setString(4, "Medicine " + i % 300);
+                    prescriptions.setObject(5, first.plusSeconds(prescriptionStep * i));
+                    prescriptions.addBatch();
+                }
+                for (int i = 0; i < ARCHIVED; i++) {
+                    archived.setLong(1, FIRST_ID + PRESCRIPTIONS + i);
+                    archived.setLong(2, FIRST_ID + i % DOCTORS);
+                    archived.setLong(3, firstPatient + (i * 13L) % PATIENTS);
+                    archived.setString(4, "Medicine " + i % 300);
+                    archived.setObject(5, first.minusDays(365).plusSeconds(prescriptionStep * i));
+                    archived.setObject(6, now);
+                    archived.addBatch();
+                }
+                prescriptions.executeBatch();
+                archived.executeBatch();
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE TABLE users, appointments, appointments_archive, prescriptions, prescriptions_archive");
+            }
+        }
+    }
+
+    private Object[] sampleArguments(Method method) {
+        Type[] types = method.getGenericParameterTypes();
+        Parameter[] parameters = method.getParameters();
+        Object[] arguments = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            arguments[i] = sampleValue(types[i]);
+            // Ends of time ranges lie a day after their starts, so the range is not empty
+            Param param = parameters[i].getAnnotation(Param.class);
+            if (arguments[i] instanceof LocalDateTime start && param != null && RANGE_ENDS.contains(param.value())) {
+                arguments[i] = start.plusDays(1);
+            }
+        }
+        return arguments;
+    }
+
+    private Object sampleValue(Type type) {
+        if (type instanceof ParameterizedType collection) {
+            return List.of(sampleValue(collection.getActualTypeArguments()[0]));
+        }
+        Class<?> raw = (Class<?>) type;
+        if (raw == Long.class || raw == long.class) {
+            return SAMPLE_ID;
+        }
+        if (raw == Integer.class || raw == int.class) {
+            return 1;
+        }
+        if (raw == String.class) {
+            return "index-usage";
+        }
+        if (raw == LocalDateTime.class) {
+            return LocalDateTime.now();
+        }
+        if (raw == LocalDate.class) {
+            return LocalDate.now();
+        }
+        if (raw == Pageable.class) {
+            return PageRequest.of(0, 20);
+        }
+        if (raw.isEnum()) {
+            return raw.getEnumConstants()[0];
+        }
+        if (raw.isAnnotationPresent(Entity.class)) {
+            return entityManager.getReference(raw, SAMPLE_ID);
+        }
+        throw new IllegalStateException("No sample value for parameter type " + type.getTypeName());
+    }
+
+    private static DataSource recordingDataSource(DataSource target) {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection connection ? recordingConnection(connection) : result;
+        });
+    }
+
+    private static Connection recordingConnection(Connection target) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                return recordingStatement(statement, (String) args[0]);
+            }
+            return result;
+        });
+    }
+
+    private static PreparedStatement recordingStatement(PreparedStatement target, String sql) {
+        List<Binding> bindings = new ArrayList<>();
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                bindings.add(new Binding(method, args.clone()));
+            } else if (name.equals("clearParameters")) {
+                bindings.clear();
+            } else if (name.equals("executeQuery") && args == null) {
+                List<RecordedQuery> queries = recording.get();
+                if (queries != null) {
+                    queries.add(new RecordedQuery(sql, List.copyOf(bindings)));
+                }
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(RepositoryIndexUsageTest.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private record Binding(Method setter, Object[] args) {}
+
+    private record RecordedQuery(String sql, List<Binding> bindings) {}
+}
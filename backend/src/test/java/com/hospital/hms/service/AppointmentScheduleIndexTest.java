@@ -0,0 +1,145 @@
+package com.hospital.hms.service;
+
+import com.hospital.hms.entity.AppointmentStatus;
+import com.hospital.hms.repository.AppointmentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The per-day free-slot bitmaps: which slots a booking blocks, when cached bitmaps are dropped and
+ * which days are cached at all.
+ */
+class AppointmentScheduleIndexTest {
+    private static final long DOCTOR = 7L;
+    private static final long PATIENT = 8L;
+
+    private final LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+    // An index over an empty database
+    private static AppointmentScheduleIndex index(String dayStart, String dayEnd, int cacheDays) {
+        AppointmentScheduleIndex index = new AppointmentScheduleIndex();
+        ReflectionTestUtils.setField(index, "appointmentRepository", mock(AppointmentRepository.class));
+        ReflectionTestUtils.setField(index, "dayStart", dayStart);
+        ReflectionTestUtils.setField(index, "dayEnd", dayEnd);
+        ReflectionTestUtils.setField(index, "cacheDays", cacheDays);
+        index.rebuild();
+        return index;
+    }
+
+    // 16 half-hour slots from 09:00
+    private static AppointmentScheduleIndex index() {
+        return index("09:00", "17:00", 90);
+    }
+
+    private static long allSlots(AppointmentScheduleIndex index) {
+        return (1L << index.getSlotsPerDay()) - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<LocalDate, Long> cachedDays(AppointmentScheduleIndex index, long doctorId) {
+        Map<Long, Map<LocalDate, Long>> cached = (Map<Long, Map<LocalDate, Long>>) ReflectionTestUtils.getField(index, "blockedSlotsByDoctor");
+        return cached.getOrDefault(doctorId, Map.of());
+    }
+
+    private static void book(AppointmentScheduleIndex index, long id, LocalDateTime start) {
+        index.update(id, DOCTOR, PATIENT, start, AppointmentStatus.SCHEDULED);
+    }
+
+    @Test
+    void emptyDayIsFree() {
+        AppointmentScheduleIndex index = index();
+        assertEquals(16, index.getSlotsPerDay());
+        assertEquals(allSlots(index), index.freeSlots(DOCTOR, tomorrow));
+
+        book(index, 1L, tomorrow.atTime(10, 0));
+        assertEquals(allSlots(index), index.freeSlots(DOCTOR, tomorrow.plusDays(2)));
+    }
+
+    @Test
+    void bookingBlocksSlotsWithinTheConflictWindow() {
+        AppointmentScheduleIndex index = index();
+        book(index, 1L, tomorrow.atTime(10, 0));
+
+        // 09:30, 10:00 and 10:30 lie within 30 minutes of 10:00
+        assertEquals(allSlots(index) & ~0b1110L, index.freeSlots(DOCTOR, tomorrow));
+        assertEquals(LocalDateTime.of(tomorrow, LocalTime.of(10, 30)), index.slotStart(tomorrow, 3));
+    }
+
+    @Test
+    void bookingOffTheSlotGridBlocksTheSlotsAroundIt() {
+        AppointmentScheduleIndex index = index();
+        book(index, 1L, tomorrow.atTime(10, 15));
+
+        // 09:45 to 10:45 covers the 10:00 and 10:30 slots
+        assertEquals(allSlots(index) & ~0b1100L, index.freeSlots(DOCTOR, tomorrow));
+    }
+
+    @Test
+    void bookingJustBeforeMidnightBlocksTheFirstSlotOfTheNextDay() {
+        AppointmentScheduleIndex index = index("00:00", "04:00", 90);
+        assertEquals(allSlots(index), index.freeSlots(DOCTOR, tomorrow));
+        assertTrue(cachedDays(index, DOCTOR).isEmpty());
+
+        index.update(1L, DOCTOR, PATIENT, tomorrow.atTime(0, 0), AppointmentStatus.SCHEDULED);
+        assertEquals(allSlots(index) & ~0b11L, index.freeSlots(DOCTOR, tomorrow));
+
+        // Cached above; the booking on the evening before must drop it
+        book(index, 2L, tomorrow.minusDays(1).atTime(23, 45));
+        assertFalse(cachedDays(index, DOCTOR).containsKey(tomorrow));
+        index.remove(1L);
+        assertEquals(allSlots(index) & ~0b1L, index.freeSlots(DOCTOR, tomorrow));
+    }
+
+    @Test
+    void cancellingOrMovingABookingFreesItsSlots() {
+        AppointmentScheduleIndex index = index();
+        book(index, 1L, tomorrow.atTime(9, 0));
+        assertEquals(allSlots(index) & ~0b11L, index.freeSlots(DOCTOR, tomorrow));
+
+        book(index, 1L, tomorrow.atTime(16, 30));
+        assertEquals(allSlots(index) & ~(0b11L << 14), index.freeSlots(DOCTOR, tomorrow));
+
+        index.update(1L, DOCTOR, PATIENT, tomorrow.atTime(16, 30), AppointmentStatus.CANCELLED);
+        assertEquals(allSlots(index), index.freeSlots(DOCTOR, tomorrow));
+    }
+
+    @Test
+    void removedUserLeavesNoBookings() {
+        AppointmentScheduleIndex index = index();
+        book(index, 1L, tomorrow.atTime(9, 0));
+        index.update(2L, 9L, DOCTOR, tomorrow.atTime(12, 0), AppointmentStatus.SCHEDULED);
+
+        index.removeUser(DOCTOR);
+        assertEquals(allSlots(index), index.freeSlots(DOCTOR, tomorrow));
+        // The other doctor's appointment had the removed user as patient
+        assertEquals(allSlots(index), index.freeSlots(9L, tomorrow));
+    }
+
+    @Test
+    void onlyDaysFromTodayToCacheDaysAheadAreCached() {
+        AppointmentScheduleIndex index = index("09:00", "17:00", 2);
+        LocalDate today = LocalDate.now();
+        book(index, 1L, today.plusDays(3).atTime(9, 0));
+        book(index, 2L, today.minusDays(1).atTime(9, 0));
+
+        for (int offset = -1; offset <= 3; offset++) {
+            index.freeSlots(DOCTOR, today.plusDays(offset));
+        }
+        assertEquals(Set.of(today, today.plusDays(1), today.plusDays(2)), cachedDays(index, DOCTOR).keySet());
+
+        // Uncached days are still computed from the schedule
+        assertEquals(allSlots(index) & ~0b11L, index.freeSlots(DOCTOR, today.plusDays(3)));
+        assertEquals(allSlots(index) & ~0b11L, index.freeSlots(DOCTOR, today.minusDays(1)));
+    }
+}
@@ -0,0 +1,127 @@
+package com.hospital.hms.service;
+
+import com.hospital.hms.dto.DoctorSlot;
+import com.hospital.hms.dto.UserSummary;
+import com.hospital.hms.entity.AppointmentStatus;
+import com.hospital.hms.repository.AppointmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The earliest-slot search, which merges every doctor's free slots in time order.
+ */
+class AvailabilityServiceTest {
+    private static final UserSummary FIRST = new UserSummary(1L, "Ada", "Lind", "Cardiology");
+    private static final UserSummary SECOND = new UserSummary(2L, "Ben", "Moss", "Cardiology");
+
+    private final LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+    private AppointmentScheduleIndex scheduleIndex;
+    private AvailabilityService availabilityService;
+    private long lastAppointmentId;
+
+    @BeforeEach
+    void setUp() {
+        scheduleIndex = new AppointmentScheduleIndex();
+        ReflectionTestUtils.setField(scheduleIndex, "appointmentRepository", mock(AppointmentRepository.class));
+        ReflectionTestUtils.setField(scheduleIndex, "dayStart", "09:00");
+        ReflectionTestUtils.setField(scheduleIndex, "dayEnd", "17:00");
+        ReflectionTestUtils.setField(scheduleIndex, "cacheDays", 90);
+        scheduleIndex.rebuild();
+
+        SpecializationIndex specializationIndex = mock(SpecializationIndex.class);
+        when(specializationIndex.getDoctors("Cardiology")).thenReturn(List.of(FIRST, SECOND));
+
+        availabilityService = new AvailabilityService();
+        ReflectionTestUtils.setField(availabilityService, "scheduleIndex", scheduleIndex);
+        ReflectionTestUtils.setField(availabilityService, "specializationIndex", specializationIndex);
+    }
+
+    private void book(UserSummary doctor, LocalDateTime start) {
+        scheduleIndex.update(++lastAppointmentId, doctor.id(), 100L, start, AppointmentStatus.SCHEDULED);
+    }
+
+    private List<DoctorSlot> earliest(LocalDateTime from, LocalDateTime to, int limit) {
+        return availabilityService.findEarliestSlots("Cardiology", from, to, limit);
+    }
+
+    private static DoctorSlot slot(UserSummary doctor, LocalDateTime start) {
+        return new DoctorSlot(doctor, start);
+    }
+
+    @Test
+    void mergesDoctorsInTimeOrderAndBreaksTiesByDoctorId() {
+        book(FIRST, tomorrow.atTime(9, 0));
+
+        assertEquals(List.of(
+                slot(SECOND, tomorrow.atTime(9, 0)),
+                slot(SECOND, tomorrow.atTime(9, 30)),
+                slot(FIRST, tomorrow.atTime(10, 0)),
+                slot(SECOND, tomorrow.atTime(10, 0))),
+                earliest(tomorrow.atStartOfDay(), tomorrow.atTime(23, 59), 4));
+    }
+
+    @Test
+    void skipsFullyBookedDays() {
+        for (int hour = 9; hour < 17; hour++) {
+            book(FIRST, tomorrow.atTime(hour, 0));
+            book(SECOND, tomorrow.atTime(hour, 0));
+        }
+        LocalDate dayAfter = tomorrow.plusDays(1);
+
+        assertEquals(List.of(slot(FIRST, dayAfter.atTime(9, 0)), slot(SECOND, dayAfter.atTime(9, 0))),
+                earliest(tomorrow.atStartOfDay(), dayAfter.atTime(23, 59), 2));
+    }
+
+    @Test
+    void windowRunsAcrossMidnightAndIncludesItsEnds() {
+        LocalDateTime from = tomorrow.atTime(16, 30);
+        LocalDateTime to = tomorrow.plusDays(1).atTime(9, 30);
+        book(SECOND, from);
+
+        assertEquals(List.of(
+                slot(FIRST, from),
+                slot(FIRST, to.withHour(9).withMinute(0)),
+                slot(SECOND, to.withHour(9).withMinute(0)),
+                slot(FIRST, to),
+                slot(SECOND, to)),
+                earliest(from, to, 50));
+    }
+
+    @Test
+    void startsWithinTheFirstDay() {
+        List<DoctorSlot> slots = earliest(tomorrow.atTime(12, 10), tomorrow.atTime(13, 0), 50);
+
+        assertEquals(List.of(
+                slot(FIRST, tomorrow.atTime(12, 30)),
+                slot(SECOND, tomorrow.atTime(12, 30)),
+                slot(FIRST, tomorrow.atTime(13, 0)),
+                slot(SECOND, tomorrow.atTime(13, 0))), slots);
+    }
+
+    @Test
+    void unknownSpecializationHasNoSlots() {
+        assertTrue(availabilityService.findEarliestSlots("Dermatology", tomorrow.atStartOfDay(), tomorrow.atTime(23, 0), 5).isEmpty());
+    }
+
+    @Test
+    void rejectsLimitsAndRangesOutOfBounds() {
+        assertThrows(IllegalArgumentException.class, () -> earliest(tomorrow.atStartOfDay(), tomorrow.atTime(12, 0), 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> earliest(tomorrow.atStartOfDay(), tomorrow.atTime(12, 0), AvailabilityService.MAX_EARLIEST_SLOTS + 1));
+        assertThrows(IllegalArgumentException.class, () -> earliest(tomorrow.plusDays(1).atTime(9, 0), tomorrow.atTime(9, 0), 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> earliest(tomorrow.atStartOfDay(), tomorrow.plusDays(AvailabilityService.MAX_RANGE_DAYS).atStartOfDay(), 5));
+    }
+}
@@ -0,0 +1,80 @@
+package com.hospital.hms.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The streaming CSV reader: quoted fields, line endings, blank lines and record numbers.
+ */
+class CsvReaderTest {
+
+    private static List<List<String>> readAll(String input) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvReader csv = new CsvReader(new StringReader(input))) {
+            List<String> record;
+            while ((record = csv.next()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    @Test
+    void quotedFieldsKeepCommasDoubledQuotesAndLineBreaks() throws IOException {
+        assertEquals(List.of(
+                        List.of("a", "b, c", "say \"hi\"", "two\r\nlines", ""),
+                        List.of("", "\"", "x")),
+                readAll("a,\"b, c\",\"say \"\"hi\"\"\",\"two\r\nlines\",\"\"\r\n,\"\"\"\",x"));
+    }
+
+    @Test
+    void quoteInsideAnUnquotedFieldIsKeptAsIs() throws IOException {
+        assertEquals(List.of(List.of("5\" tall", "x\"\"y")), readAll("5\" tall,x\"\"y\n"));
+    }
+
+    @Test
+    void acceptsEveryLineEndingAndKeepsTrailingEmptyFields() throws IOException {
+        assertEquals(List.of(List.of("a", "b"), List.of("c", ""), List.of("d"), List.of("", "")),
+                readAll("a,b\r\nc,\rd\n,"));
+    }
+
+    @Test
+    void skipsBlankLinesButCountsThemInRecordNumbers() throws IOException {
+        try (CsvReader csv = new CsvReader(new StringReader("header\n\n  \nfirst\r\n\r\nsecond\n\n"))) {
+            assertEquals(List.of("header"), csv.next());
+            assertEquals(1, csv.recordNumber());
+            assertEquals(List.of("first"), csv.next());
+            assertEquals(4, csv.recordNumber());
+            assertEquals(List.of("second"), csv.next());
+            assertEquals(6, csv.recordNumber());
+            assertNull(csv.next());
+            assertNull(csv.next());
+        }
+    }
+
+    @Test
+    void quotedLineBreakDoesNotStartANewRecord() throws IOException {
+        try (CsvReader csv = new CsvReader(new StringReader("\"a\nb\",c\nd\n"))) {
+            assertEquals(List.of("a\nb", "c"), csv.next());
+            assertEquals(List.of("d"), csv.next());
+            assertEquals(2, csv.recordNumber());
+        }
+    }
+
+    @Test
+    void rejectsAnUnterminatedQuotedField() throws IOException {
+        try (CsvReader csv = new CsvReader(new StringReader("ok\n\"open,field\n"))) {
+            assertEquals(List.of("ok"), csv.next());
+            IOException e = assertThrows(IOException.class, csv::next);
+            assertEquals("Unterminated quoted field in record 2", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.hospital.hms.service;
+
+import com.hospital.hms.entity.Appointment;
+import com.hospital.hms.entity.AppointmentStatus;
+import com.hospital.hms.entity.Role;
+import com.hospital.hms.entity.User;
+import com.hospital.hms.repository.UserRepository;
+import com.hospital.hms.security.OffloadingPasswordEncoder;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Row rejection in the CSV import, run synchronously against mocked repositories: each invalid row
+ * is reported with its record number and the valid rows around it are still saved.
+ */
+class ImportServiceTest {
+    private final LocalDate day = LocalDate.now().plusDays(1);
+
+    private final User patient = user(10L, "pat", Role.PATIENT);
+    private final User doctor = user(20L, "doc", Role.DOCTOR);
+
+    private UserRepository userRepository;
+    private BatchWriter batchWriter;
+    private OffloadingPasswordEncoder passwordEncoder;
+    private AppointmentConflicts conflicts;
+    private ImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        batchWriter = mock(BatchWriter.class);
+        when(batchWriter.persistAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        passwordEncoder = mock(OffloadingPasswordEncoder.class);
+        when(passwordEncoder.encodeOnCallingThread(any())).thenReturn("hash");
+        conflicts = mock(AppointmentConflicts.class);
+
+        importService = new ImportService();
+        ReflectionTestUtils.setField(importService, "hashingThreads", 1);
+        ReflectionTestUtils.setField(importService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(importService, "batchWriter", batchWriter);
+        ReflectionTestUtils.setField(importService, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(importService, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(importService, "scheduleIndex", mock(AppointmentScheduleIndex.class));
+        ReflectionTestUtils.setField(importService, "conflicts", conflicts);
+        ReflectionTestUtils.setField(importService, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(importService, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(importService, "taskExecutor", (TaskExecutor) Runnable::run);
+    }
+
+    private static User user(long id, String username, Role role) {
+        User user = new User(username, username + "@example.com", "hash", "First", "Last", null, role);
+        user.setId(id);
+        return user;
+    }
+
+    private ImportJob importCsv(ImportJob.Type type, String csv) {
+        return importService.startImport(type, new MockMultipartFile("file", "import.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void rejectsInvalidAppointmentRowsAndSavesTheRest() {
+        when(userRepository.findAllById(any())).thenReturn(List.of(patient, doctor));
+        when(conflicts.hasConflict(20L, day.atTime(12, 0), null)).thenReturn(true);
+
+        ImportJob job = importCsv(ImportJob.Type.APPOINTMENTS, String.join("\r\n",
+                "patientId,doctorId,appointmentDateTime,reason,status",
+                "10,20," + day + "T09:00,\"Chest pain, \"\"sharp\"\"\nsince Monday\",",
+                "99,20," + day + "T10:00,,",
+                "10,10," + day + "T10:00,,",
+                "10,20,tomorrow 10am,,",
+                "10,20," + day + "T09:15,,",
+                "10,20," + day + "T11:00,,\"x\"\"y\"",
+                "10,20," + day + "T12:00,,",
+                ",20," + day + "T13:00,,",
+                "10,20," + day + "T16:00,,cancelled",
+                "10,20," + day + "T16:00,,"));
+
+        assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(10, job.getRowsRead());
+        assertEquals(3, job.getImported());
+        // Record numbers count the header; the quoted line break stays inside record 2
+        assertEquals(List.of(
+                new ImportJob.RowError(3, "Patient not found with id: 99"),
+                new ImportJob.RowError(4, "User pat is not a doctor"),
+                new ImportJob.RowError(5, "Invalid appointmentDateTime: tomorrow 10am"),
+                new ImportJob.RowError(6, "Doctor is not available at the requested time"),
+                new ImportJob.RowError(7, "Invalid status: x\"y"),
+                new ImportJob.RowError(9, "Patient ID is required"),
+                new ImportJob.RowError(8, "Doctor is not available at the requested time")), job.getErrors());
+        assertTrue(importService.errorReport(job).contains("\r\n7,\"Invalid status: x\"\"y\"\r\n"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Appointment>> saved = ArgumentCaptor.forClass(List.class);
+        verify(batchWriter).persistAll(saved.capture());
+        assertEquals(List.of(day.atTime(9, 0), day.atTime(16, 0), day.atTime(16, 0)),
+                saved.getValue().stream().map(Appointment::getAppointmentDateTime).toList());
+        assertEquals("Chest pain, \"sharp\"\nsince Monday", saved.getValue().get(0).getReason());
+        assertEquals(AppointmentStatus.CANCELLED, saved.getValue().get(1).getStatus());
+    }
+
+    @Test
+    void rejectsInvalidAndDuplicatePatientRowsAndSavesTheRest() {
+        when(userRepository.findExistingUsernames(any())).thenReturn(List.of("Taken"));
+        when(userRepository.findExistingEmails(any())).thenReturn(List.of());
+
+        ImportJob job = importCsv(ImportJob.Type.PATIENTS, String.join("\n",
+                "username,email,firstName,lastName,password",
+                "ann,ann@example.com,Ann,Lee,",
+                "ANN,other@example.com,Ann,Two,pw",
+                "bob,not-an-email,Bob,Ray,pw",
+                "carl,ANN@example.com,Carl,Zed,pw",
+                "taken,t@example.com,Tia,Kay,pw",
+                ",,Dan,\"O'Neil, Jr\",pw",
+                "\"eve\",\"eve@example.com\",\"Eve\",\"Lin\",\"p,w\""));
+
+        assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(7, job.getRowsRead());
+        assertEquals(2, job.getImported());
+        assertEquals(1, job.getPasswordResets());
+        assertEquals(List.of(
+                new ImportJob.RowError(3, "Username appears earlier in the file"),
+                new ImportJob.RowError(4, "Email should be valid"),
+                new ImportJob.RowError(5, "Email appears earlier in the file"),
+                new ImportJob.RowError(7, "Email is required; Username is required"),
+                new ImportJob.RowError(6, "Username is already taken!")), job.getErrors());
+        verify(passwordEncoder).encodeOnCallingThread("p,w");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<User>> saved = ArgumentCaptor.forClass(List.class);
+        verify(batchWriter).persistAll(saved.capture());
+        assertEquals(List.of("ann", "eve"), saved.getValue().stream().map(User::getUsername).toList());
+        assertTrue(saved.getValue().get(0).isPasswordResetRequired());
+    }
+
+    @Test
+    void rejectsAFileWithoutTheRequiredColumns() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> importCsv(ImportJob.Type.APPOINTMENTS, "patientUsername,\"doctorId\"\n"));
+        assertEquals("CSV header is missing columns: appointmentDateTime", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> importCsv(ImportJob.Type.PATIENTS, ""));
+    }
+}
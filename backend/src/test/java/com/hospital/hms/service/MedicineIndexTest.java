@@ -0,0 +1,115 @@
+package com.hospital.hms.service;
+
+import com.hospital.hms.dto.MedicineSuggestion;
+import com.hospital.hms.event.ChangeType;
+import com.hospital.hms.event.PrescriptionChangedEvent;
+import com.hospital.hms.event.SharedPrescriptionChanges;
+import com.hospital.hms.repository.PrescriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The medicine radix trie: edges split as names are added, prefixes that end inside an edge, and
+ * the best-first ranking by overall and per-doctor counts.
+ */
+class MedicineIndexTest {
+    private static final long FIRST_DOCTOR = 1L;
+    private static final long SECOND_DOCTOR = 2L;
+
+    private MedicineIndex index;
+
+    @BeforeEach
+    void setUp() {
+        PrescriptionRepository prescriptionRepository = mock(PrescriptionRepository.class);
+        // Added in this order, "amoxicillin" is split at "am", then at "a", then at "amox"
+        when(prescriptionRepository.streamMedicineUsage()).thenAnswer(invocation -> Stream.of(
+                new Object[] {"Amoxicillin", "500mg", FIRST_DOCTOR, 5L},
+                new Object[] {"amoxicillin", "250mg", SECOND_DOCTOR, 2L},
+                new Object[] {"Amlodipine", "5mg", SECOND_DOCTOR, 4L},
+                new Object[] {"Ampicillin", "1g", FIRST_DOCTOR, 1L},
+                new Object[] {"Aspirin", "81mg", SECOND_DOCTOR, 6L},
+                new Object[] {"Amox", null, SECOND_DOCTOR, 1L}));
+
+        index = new MedicineIndex();
+        ReflectionTestUtils.setField(index, "prescriptionRepository", prescriptionRepository);
+        ReflectionTestUtils.setField(index, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(index, "doctorHistoryWeight", 10L);
+        index.rebuild();
+    }
+
+    private List<String> names(Long doctorId, String prefix, int limit) {
+        return index.suggest(doctorId, prefix, limit).stream().map(MedicineSuggestion::medicineName).toList();
+    }
+
+    private static PrescriptionChangedEvent prescribed(ChangeType type, long doctorId, String medicineName, String dosage) {
+        return new PrescriptionChangedEvent(type, 100L, doctorId, 200L, medicineName, dosage);
+    }
+
+    @Test
+    void prefixEndingInsideAnEdgeLabelFindsTheNamesBelowIt() {
+        // "amo" ends inside the "ox" edge, "amoxi" inside the "icillin" edge
+        assertEquals(List.of("Amoxicillin", "Amox"), names(null, "amo", 10));
+        assertEquals(List.of("Amoxicillin"), names(null, "amoxi", 10));
+        assertEquals(List.of("Amoxicillin", "Amox"), names(null, "amox", 10));
+        assertEquals(List.of("Amlodipine"), names(null, "  AMLO ", 10));
+    }
+
+    @Test
+    void prefixLeavingTheTrieFindsNothing() {
+        assertEquals(List.of(), names(null, "amx", 10));
+        assertEquals(List.of(), names(null, "amoxicillins", 10));
+        assertEquals(List.of(), names(null, "b", 10));
+    }
+
+    @Test
+    void ranksByCountPlusTheDoctorsOwnHistory() {
+        // Without history: 7, 6, 4, then the two medicines prescribed once
+        assertEquals(List.of("Amoxicillin", "Aspirin", "Amlodipine"), names(null, "a", 3));
+        // 7 + 10 * 5, 1 + 10 * 1, 6, 4, 1
+        assertEquals(List.of("Amoxicillin", "Ampicillin", "Aspirin", "Amlodipine", "Amox"), names(FIRST_DOCTOR, "a", 5));
+        // 6 + 10 * 6, 4 + 10 * 4, 7 + 10 * 2, 1 + 10 * 1
+        assertEquals(List.of("Aspirin", "Amlodipine", "Amoxicillin", "Amox"), names(SECOND_DOCTOR, "a", 4));
+        assertEquals(List.of("Aspirin"), names(SECOND_DOCTOR, "a", 1));
+    }
+
+    @Test
+    void suggestionCarriesItsCountsAndMostCommonDosages() {
+        assertEquals(new MedicineSuggestion("Amoxicillin", List.of("500mg", "250mg"), 7, 2),
+                index.suggest(SECOND_DOCTOR, "amoxi", 1).get(0));
+        assertEquals(new MedicineSuggestion("Amox", List.of(), 1, 0),
+                index.suggest(FIRST_DOCTOR, "amox", 2).get(1));
+    }
+
+    @Test
+    void createdPrescriptionsFromTheFeedSplitEdgesAndRaiseScores() {
+        index.onSharedPrescriptionChanges(new SharedPrescriptionChanges(List.of(
+                prescribed(ChangeType.CREATED, SECOND_DOCTOR, "Ample", "2mg"),
+                prescribed(ChangeType.CREATED, SECOND_DOCTOR, "Ample", "2mg"),
+                prescribed(ChangeType.UPDATED, SECOND_DOCTOR, "Ampicillin", "1g"),
+                prescribed(ChangeType.DELETED, SECOND_DOCTOR, "Ampicillin", "1g"))));
+
+        // "picillin" below "am" is split at "p"; the edits and deletions are not counted
+        assertEquals(List.of("Ample", "Ampicillin"), names(SECOND_DOCTOR, "amp", 10));
+        assertEquals(List.of("Ampicillin", "Ample"), names(FIRST_DOCTOR, "amp", 10));
+        assertEquals(List.of("Ampicillin"), names(FIRST_DOCTOR, "ampi", 10));
+        assertEquals(List.of("Ample"), names(FIRST_DOCTOR, "ampl", 10));
+    }
+
+    @Test
+    void rejectsEmptyPrefixesAndLimitsOutOfBounds() {
+        assertThrows(IllegalArgumentException.class, () -> index.suggest(FIRST_DOCTOR, " ", 5));
+        assertThrows(IllegalArgumentException.class, () -> index.suggest(FIRST_DOCTOR, null, 5));
+        assertThrows(IllegalArgumentException.class, () -> index.suggest(FIRST_DOCTOR, "am", 0));
+        assertThrows(IllegalArgumentException.class, () -> index.suggest(FIRST_DOCTOR, "am", MedicineIndex.MAX_SUGGESTIONS + 1));
+    }
+}
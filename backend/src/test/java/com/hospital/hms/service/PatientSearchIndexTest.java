@@ -0,0 +1,123 @@
+package com.hospital.hms.service;
+
+import com.hospital.hms.dto.PatientMatch;
+import com.hospital.hms.entity.Role;
+import com.hospital.hms.entity.User;
+import com.hospital.hms.event.ChangeType;
+import com.hospital.hms.event.SharedUserChanges;
+import com.hospital.hms.event.UserChangedEvent;
+import com.hospital.hms.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The gram index behind the patient search: how matches are found and ranked, and how the slots of
+ * removed patients are given to new ones.
+ */
+class PatientSearchIndexTest {
+    private static final PatientMatch ANN = new PatientMatch(1L, "Ann", "Lee", "ann1", "ann@example.com", "5551234567");
+    private static final PatientMatch ANNA = new PatientMatch(2L, "Anna", "Berg", "anna", "anna@example.com", null);
+    private static final PatientMatch JOANNE = new PatientMatch(3L, "Joanne", "Voss", "jvoss", "jv@example.com", null);
+    private static final PatientMatch BOJO = new PatientMatch(4L, "Bojo", "Hart", "bhart", "bh@example.com", null);
+
+    private UserRepository userRepository;
+    private PatientSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.streamMatchesByRole(Role.PATIENT)).thenAnswer(invocation -> Stream.of(ANN, ANNA, JOANNE, BOJO));
+
+        index = new PatientSearchIndex();
+        ReflectionTestUtils.setField(index, "userRepository", userRepository);
+        ReflectionTestUtils.setField(index, "transactionManager", mock(PlatformTransactionManager.class));
+        index.rebuild();
+    }
+
+    private static User patient(PatientMatch match, Role role) {
+        User user = new User(match.username(), match.email(), "secret", match.firstName(), match.lastName(), match.phoneNumber(), role);
+        user.setId(match.id());
+        return user;
+    }
+
+    // Delivers the changes as the change feed would, with the users findAllById returns for them
+    private void share(List<User> current, UserChangedEvent... changes) {
+        when(userRepository.findAllById(any())).thenReturn(current);
+        index.onSharedUserChanges(new SharedUserChanges(List.of(changes)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Integer> slots() {
+        return (Map<Long, Integer>) ReflectionTestUtils.getField(index, "slotsById");
+    }
+
+    @Test
+    void wholeTermsRankAbovePrefixesAboveMatchesInside() {
+        assertEquals(List.of(ANN, ANNA, JOANNE), index.search("ann", 10));
+        assertEquals(List.of(ANN), index.search("ann", 1));
+    }
+
+    @Test
+    void shortWordsOnlyMatchTheStartOfATerm() {
+        // "jo" starts Joanne's first name and sits inside Bojo's
+        assertEquals(List.of(JOANNE), index.search("jo", 10));
+        assertEquals(List.of(), index.search("oj", 10));
+        assertEquals(List.of(BOJO), index.search("ojo", 10));
+    }
+
+    @Test
+    void everyWordMustMatchAndPhoneNumbersIgnorePunctuation() {
+        assertEquals(List.of(ANN), index.search("ann lee", 10));
+        assertEquals(List.of(ANNA), index.search("ann berg", 10));
+        assertEquals(List.of(), index.search("lee voss", 10));
+        assertEquals(List.of(ANN), index.search("555-123 4567", 10));
+        assertEquals(List.of(), index.search("zzz", 10));
+    }
+
+    @Test
+    void removedSlotIsReusedWithoutItsOldGrams() {
+        int annSlot = slots().get(ANN.id());
+        share(List.of(), new UserChangedEvent(ChangeType.DELETED, ANN.id(), Role.PATIENT));
+        assertEquals(List.of(ANNA, JOANNE), index.search("ann", 10));
+        assertEquals(List.of(), index.search("lee", 10));
+
+        PatientMatch zoe = new PatientMatch(5L, "Zoe", "Quist", "zq", "zq@example.com", null);
+        share(List.of(patient(zoe, Role.PATIENT)), new UserChangedEvent(ChangeType.CREATED, zoe.id(), Role.PATIENT));
+        assertEquals(annSlot, slots().get(zoe.id()));
+        assertEquals(List.of(zoe), index.search("quist", 10));
+        assertEquals(List.of(ANNA, JOANNE), index.search("ann", 10));
+        assertEquals(List.of(), index.search("555", 10));
+    }
+
+    @Test
+    void updatedPatientIsReindexedAndOneWhoIsNoLongerAPatientIsRemoved() {
+        PatientMatch renamed = new PatientMatch(ANNA.id(), "Anna", "Nygaard", "anna", "anna@example.com", null);
+        share(List.of(patient(renamed, Role.PATIENT)), new UserChangedEvent(ChangeType.UPDATED, ANNA.id(), Role.PATIENT));
+        assertEquals(List.of(renamed), index.search("nygaard", 10));
+        assertEquals(List.of(), index.search("berg", 10));
+
+        share(List.of(), new UserChangedEvent(ChangeType.UPDATED, BOJO.id(), Role.DOCTOR));
+        assertEquals(List.of(), index.search("bojo", 10));
+        assertEquals(3, slots().size());
+    }
+
+    @Test
+    void rejectsEmptyQueriesAndLimitsOutOfBounds() {
+        assertThrows(IllegalArgumentException.class, () -> index.search("  -  ", 10));
+        assertThrows(IllegalArgumentException.class, () -> index.search(null, 10));
+        assertThrows(IllegalArgumentException.class, () -> index.search("ann", 0));
+        assertThrows(IllegalArgumentException.class, () -> index.search("ann", PatientSearchIndex.MAX_RESULTS + 1));
+    }
+}
@@ -0,0 +1,56 @@
+-- Tables as Hibernate's ddl-auto=update created them for the first release (MySQL-compatible dump)
+
+CREATE TABLE `users` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `address` varchar(255) DEFAULT NULL,
+  `created_at` datetime(6) DEFAULT NULL,
+  `email` varchar(255) DEFAULT NULL,
+  `emergency_contact` varchar(255) DEFAULT NULL,
+  `first_name` varchar(255) DEFAULT NULL,
+  `last_name` varchar(255) DEFAULT NULL,
+  `license_number` varchar(255) DEFAULT NULL,
+  `password` varchar(255) DEFAULT NULL,
+  `phone_number` varchar(255) DEFAULT NULL,
+  `role` enum('ADMIN','DOCTOR','PATIENT') DEFAULT NULL,
+  `specialization` varchar(255) DEFAULT NULL,
+  `updated_at` datetime(6) DEFAULT NULL,
+  `username` varchar(255) DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `UK_6dotkott2kjsp8vw4d0m25fb7` (`email`),
+  UNIQUE KEY `UK_r43af9ap4edm43mmtq01oddj6` (`username`)
+) ENGINE=InnoDB;
+
+CREATE TABLE `appointments` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `appointment_datetime` datetime(6) NOT NULL,
+  `created_at` datetime(6) DEFAULT NULL,
+  `notes` varchar(255) DEFAULT NULL,
+  `reason` varchar(255) DEFAULT NULL,
+  `status` enum('CANCELLED','COMPLETED','CONFIRMED','NO_SHOW','SCHEDULED') DEFAULT NULL,
+  `updated_at` datetime(6) DEFAULT NULL,
+  `doctor_id` bigint(20) NOT NULL,
+  `patient_id` bigint(20) NOT NULL,
+  PRIMARY KEY (`id`),
+  KEY `FK6u6s6egu60m2cbdjno44jbipa` (`doctor_id`),
+  KEY `FKopb2h9yhin1rb4dqote8bws6w` (`patient_id`),
+  CONSTRAINT `FK6u6s6egu60m2cbdjno44jbipa` FOREIGN KEY (`doctor_id`) REFERENCES `users` (`id`),
+  CONSTRAINT `FKopb2h9yhin1rb4dqote8bws6w` FOREIGN KEY (`patient_id`) REFERENCES `users` (`id`)
+) ENGINE=InnoDB;
+
+CREATE TABLE `prescriptions` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `created_at` datetime(6) DEFAULT NULL,
+  `dosage` varchar(255) DEFAULT NULL,
+  `duration` int(11) DEFAULT NULL,
+  `instructions` varchar(255) DEFAULT NULL,
+  `medicine_name` varchar(255) DEFAULT NULL,
+  `prescribed_date` datetime(6) DEFAULT NULL,
+  `updated_at` datetime(6) DEFAULT NULL,
+  `doctor_id` bigint(20) NOT NULL,
+  `patient_id` bigint(20) NOT NULL,
+  PRIMARY KEY (`id`),
+  KEY `FK2hdpvkpjjx3plf21194oxjskt` (`doctor_id`),
+  KEY `FK7sia9wnwh9j5hwrta9k8q0rbq` (`patient_id`),
+  CONSTRAINT `FK2hdpvkpjjx3plf21194oxjskt` FOREIGN KEY (`doctor_id`) REFERENCES `users` (`id`),
+  CONSTRAINT `FK7sia9wnwh9j5hwrta9k8q0rbq` FOREIGN KEY (`patient_id`) REFERENCES `users` (`id`)
+) ENGINE=InnoDB;
@@ -0,0 +1,103 @@
+package com.hospital.hms.benchmark;
+
+import com.hospital.hms.HospitalManagementSystemApplication;
+import com.hospital.hms.entity.Appointment;
+import com.hospital.hms.entity.Role;
+import com.hospital.hms.entity.User;
+import com.hospital.hms.repository.AppointmentRepository;
+import com.hospital.hms.repository.UserRepository;
+import com.hospital.hms.service.AppointmentConflicts;
+import com.hospital.hms.service.AppointmentScheduleIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Doctor availability checks, run against the real application context on an embedded H2
+ * database: the indexed count query bookings are checked with, the original range query, and
+ * the in-memory schedule index availability listings read.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AppointmentConflictBenchmark {
+
+    @Param({"10000"})
+    private int appointmentsPerDoctor;
+
+    private ConfigurableApplicationContext context;
+    private AppointmentScheduleIndex scheduleIndex;
+    private AppointmentConflicts conflicts;
+    private AppointmentRepository appointmentRepository;
+    private Long doctorId;
+    private LocalDateTime firstSlot;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(HospitalManagementSystemApplication.class)
+                .run("--server.port=0",
+                        "--management.server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.flyway.enabled=false",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--app.security.bcrypt.strength=10");
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        appointmentRepository = context.getBean(AppointmentRepository.class);
+        scheduleIndex = context.getBean(AppointmentScheduleIndex.class);
+        conflicts = context.getBean(AppointmentConflicts.class);
+
+        User doctor = userRepository.findByUsername("doctor1").orElseThrow();
+        User patient = userRepository.findByUsername("patient1").orElseThrow();
+        doctorId = doctor.getId();
+        firstSlot = LocalDateTime.now().plusDays(1).withHour(8).withMinute(0).withSecond(0).withNano(0);
+
+        List<Appointment> appointments = new ArrayList<>(appointmentsPerDoctor);
+        for (int i = 0; i < appointmentsPerDoctor; i++) {
+            // Hourly bookings leave gaps, so roughly half the probes below find no conflict
+            appointments.add(new Appointment(patient, doctor, firstSlot.plusHours(i), "Benchmark"));
+        }
+        appointmentRepository.saveAll(appointments);
+        scheduleIndex.rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean databaseConflictCount() {
+        return conflicts.hasConflict(doctorId, randomProbe(), null);
+    }
+
+    @Benchmark
+    public long indexFreeSlots() {
+        return scheduleIndex.freeSlots(doctorId, randomProbe().toLocalDate());
+    }
+
+    @Benchmark
+    public boolean databaseConflictQuery() {
+        LocalDateTime probe = randomProbe();
+        return !appointmentRepository.findByDoctorIdAndAppointmentDateTimeBetween(
+                doctorId, probe.minusMinutes(30), probe.plusMinutes(30)).isEmpty();
+    }
+
+    private LocalDateTime randomProbe() {
+        return firstSlot.plusMinutes(15L * ThreadLocalRandom.current().nextInt(appointmentsPerDoctor * 4));
+    }
+}
@@ -0,0 +1,82 @@
+package com.hospital.hms.benchmark;
+
+import com.hospital.hms.entity.Role;
+import com.hospital.hms.entity.User;
+import com.hospital.hms.security.AuthTokenFilter;
+import com.hospital.hms.security.CustomUserDetailsService;
+import com.hospital.hms.security.JwtUtils;
+import com.hospital.hms.security.PrincipalInvalidationRegistry;
+import com.hospital.hms.security.UserPrincipal;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full AuthTokenFilter pass for an authenticated request. The user lookup is stubbed, so the
+ * numbers show the filter's own cost; with embedded claims the lookup is skipped entirely.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthTokenFilterBenchmark {
+
+    @Param({"0", "10000"})
+    private int verifiedCacheSize;
+
+    @Param({"false", "true"})
+    private boolean embedClaims;
+
+    private AuthTokenFilter filter;
+    private String authorizationHeader;
+
+    @Setup
+    public void setup() {
+        User user = BenchmarkSupport.user(1L, "doctor1", Role.DOCTOR);
+        JwtUtils jwtUtils = BenchmarkSupport.jwtUtils(verifiedCacheSize, embedClaims);
+
+        PrincipalInvalidationRegistry invalidationRegistry = new PrincipalInvalidationRegistry();
+        ReflectionTestUtils.setField(invalidationRegistry, "jwtExpirationInMs", BenchmarkSupport.JWT_EXPIRATION_MS);
+
+        filter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "userDetailsService", new StubUserDetailsService(UserPrincipal.create(user)));
+        ReflectionTestUtils.setField(filter, "invalidationRegistry", invalidationRegistry);
+
+        authorizationHeader = "Bearer " + jwtUtils.generateJwtToken(BenchmarkSupport.authentication(user));
+    }
+
+    @Benchmark
+    public void filterAuthenticatedRequest(Blackhole blackhole) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/doctor/appointments");
+        request.addHeader("Authorization", authorizationHeader);
+        FilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    private static class StubUserDetailsService extends CustomUserDetailsService {
+        private final UserPrincipal principal;
+
+        StubUserDetailsService(UserPrincipal principal) {
+            this.principal = principal;
+        }
+
+        @Override
+        public UserDetails loadUserByUsername(String username) {
+            return principal;
+        }
+    }
+}
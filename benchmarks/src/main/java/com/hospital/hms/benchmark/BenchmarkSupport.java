@@ -0,0 +1,47 @@
+package com.hospital.hms.benchmark;
+
+import com.hospital.hms.entity.Role;
+import com.hospital.hms.entity.User;
+import com.hospital.hms.security.JwtUtils;
+import com.hospital.hms.security.UserPrincipal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Builds backend components outside of a Spring context, configured like application.properties.
+ */
+final class BenchmarkSupport {
+    static final String JWT_SECRET = "hospitalManagementSystemSecretKeyForJWTTokenGenerationAndValidation2025";
+    static final int JWT_EXPIRATION_MS = 86400000;
+
+    private BenchmarkSupport() {}
+
+    static JwtUtils jwtUtils(int verifiedCacheSize) {
+        return jwtUtils(verifiedCacheSize, false);
+    }
+
+    static JwtUtils jwtUtils(int verifiedCacheSize, boolean embedClaims) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", JWT_SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationInMs", JWT_EXPIRATION_MS);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheSize", verifiedCacheSize);
+        ReflectionTestUtils.setField(jwtUtils, "embedClaims", embedClaims);
+        ReflectionTestUtils.setField(jwtUtils, "meterRegistry", new SimpleMeterRegistry());
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    static User user(long id, String username, Role role) {
+        User user = new User(username, username + "@hospital.com", "encoded-password",
+                "First" + id, "Last" + id, "1234567890", role);
+        user.setId(id);
+        return user;
+    }
+
+    static Authentication authentication(User user) {
+        UserPrincipal principal = UserPrincipal.create(user);
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+}
@@ -0,0 +1,74 @@
+package com.hospital.hms.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.hms.config.JacksonConfig;
+import com.hospital.hms.entity.Appointment;
+import com.hospital.hms.entity.Prescription;
+import com.hospital.hms.entity.Role;
+import com.hospital.hms.entity.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of appointment and prescription list responses with the application ObjectMapper.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JacksonSerializationBenchmark {
+
+    @Param({"20", "500"})
+    private int listSize;
+
+    private ObjectMapper objectMapper;
+    private List<Appointment> appointments;
+    private List<Prescription> prescriptions;
+
+    @Setup
+    public void setup() {
+        objectMapper = new JacksonConfig().objectMapper();
+
+        User doctor = BenchmarkSupport.user(1L, "doctor1", Role.DOCTOR);
+        doctor.setSpecialization("Cardiology");
+        doctor.setLicenseNumber("DOC123456");
+        LocalDateTime start = LocalDateTime.of(2025, 1, 6, 9, 0);
+
+        appointments = new ArrayList<>(listSize);
+        prescriptions = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            User patient = BenchmarkSupport.user(100L + i, "patient" + i, Role.PATIENT);
+            patient.setAddress("123 Main St, City, State");
+            patient.setEmergencyContact("John Doe - 9876543210");
+
+            Appointment appointment = new Appointment(patient, doctor, start.plusMinutes(30L * i), "Routine check-up");
+            appointment.setId((long) i);
+            appointment.setCreatedAt(start);
+            appointment.setUpdatedAt(start);
+            appointments.add(appointment);
+
+            Prescription prescription = new Prescription(patient, doctor, "Amoxicillin", "500mg",
+                    "Take one capsule three times a day after meals", 7);
+            prescription.setId((long) i);
+            prescription.setCreatedAt(start);
+            prescription.setUpdatedAt(start);
+            prescriptions.add(prescription);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeAppointments() throws Exception {
+        return objectMapper.writeValueAsBytes(appointments);
+    }
+
+    @Benchmark
+    public byte[] serializePrescriptions() throws Exception {
+        return objectMapper.writeValueAsBytes(prescriptions);
+    }
+}
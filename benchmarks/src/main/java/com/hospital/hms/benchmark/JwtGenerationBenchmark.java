@@ -0,0 +1,37 @@
+package com.hospital.hms.benchmark;
+
+import com.hospital.hms.entity.Role;
+import com.hospital.hms.security.JwtUtils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token signing cost at sign-in, with and without the embedded principal claims.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtGenerationBenchmark {
+
+    @Param({"false", "true"})
+    private boolean embedClaims;
+
+    private JwtUtils jwtUtils;
+    private Authentication authentication;
+
+    @Setup
+    public void setup() {
+        jwtUtils = BenchmarkSupport.jwtUtils(0, embedClaims);
+        authentication = BenchmarkSupport.authentication(BenchmarkSupport.user(1L, "doctor1", Role.DOCTOR));
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtils.generateJwtToken(authentication);
+    }
+}
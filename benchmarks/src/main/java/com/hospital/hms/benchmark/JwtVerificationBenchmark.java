@@ -0,0 +1,57 @@
+package com.hospital.hms.benchmark;
+
+import com.hospital.hms.entity.Role;
+import com.hospital.hms.security.JwtUtils;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request token verification cost: the original validate-then-parse path, which built
+ * the key and parser twice, against the single-parse path with and without the verified-token cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtVerificationBenchmark {
+
+    private JwtUtils uncachedJwtUtils;
+    private JwtUtils cachedJwtUtils;
+    private String token;
+
+    @Setup
+    public void setup() {
+        uncachedJwtUtils = BenchmarkSupport.jwtUtils(0);
+        cachedJwtUtils = BenchmarkSupport.jwtUtils(10000);
+        token = cachedJwtUtils.generateJwtToken(
+                BenchmarkSupport.authentication(BenchmarkSupport.user(1L, "doctor1", Role.DOCTOR)));
+    }
+
+    @Benchmark
+    public String legacyValidateThenParse() {
+        Jwts.parserBuilder().setSigningKey(legacyKey()).build().parse(token);
+        return Jwts.parserBuilder().setSigningKey(legacyKey()).build()
+                .parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public JwtUtils.VerifiedToken singleParse() {
+        return uncachedJwtUtils.verify(token);
+    }
+
+    @Benchmark
+    public JwtUtils.VerifiedToken cachedParse() {
+        return cachedJwtUtils.verify(token);
+    }
+
+    private static Key legacyKey() {
+        return Keys.hmacShaKeyFor(BenchmarkSupport.JWT_SECRET.getBytes(StandardCharsets.UTF_8));
+    }
+}
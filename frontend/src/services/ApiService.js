@@ -4,6 +4,8 @@ const API_URL = 'http://localhost:8080/api';
 
 const api = axios.create({
   baseURL: API_URL,
+  // Sends the server's cookies back, which keep reads after a write on the primary database
+  withCredentials: true,
   headers: {
     'Content-Type': 'application/json',
   },